@@ -0,0 +1,23 @@
+package com.medad.base;
+
+import java.util.Locale;
+
+/**
+ * Which tests keep their video and Playwright trace, selected with ARTIFACT_RETENTION
+ */
+public enum ArtifactRetention {
+
+    /**
+     * Failed tests and tests annotated with {@link RetainArtifacts}
+     */
+    ON_FAILURE,
+
+    /**
+     * Every test (the previous behaviour)
+     */
+    ALWAYS;
+
+    public static ArtifactRetention fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -1,6 +1,31 @@
 package com.medad.base;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.medad.browser.AssetBlocker;
+import com.medad.browser.BrowserPageExtension;
+import com.medad.browser.BrowserPool;
+import com.medad.browser.NavigationTimeline;
+import com.medad.browser.PageMetricsCollector;
+import com.medad.browser.ScreenshotRecorder;
+import com.medad.browser.StorageStateCache;
+import com.medad.browser.WithoutBrowser;
+import com.medad.cluster.LoadBalancerContainer;
+import com.medad.cluster.RoutingMode;
 import com.medad.config.EnvironmentConfig;
+import com.medad.config.ExecutionProfile;
+import com.medad.database.DatabaseBackend;
+import com.medad.database.StatementDigest;
+import com.medad.database.StatementProfiler;
+import com.medad.faults.UaePassFaultProxy;
+import com.medad.logging.ContainerLogPipeline;
+import com.medad.metrics.MetricsDiff;
+import com.medad.metrics.PrometheusMetrics;
+import com.medad.mock.UaePassMockContainer;
+import com.medad.mock.UaePassMockMode;
+import com.medad.mock.UaePassMockProfile;
+import com.medad.mock.UaePassStubServer;
+import com.medad.protocol.RelyingPartyClient;
 import com.medad.utils.ClientManager;
 import com.medad.utils.IdentityProviderManager;
 import com.medad.utils.RealmConfigurationManager;
@@ -12,6 +37,7 @@ import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.core.UriBuilder;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
 
@@ -19,28 +45,40 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.BindMode;
 import org.testcontainers.containers.GenericContainer;
-import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.JdbcDatabaseContainer;
 import org.testcontainers.containers.Network;
-import org.testcontainers.containers.output.Slf4jLogConsumer;
+import org.testcontainers.Testcontainers;
 import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.images.builder.ImageFromDockerfile;
+import org.testcontainers.lifecycle.Startables;
 
 import org.wiremock.integrations.testcontainers.WireMockContainer;
 
 import java.awt.*;
-import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 
+@ExtendWith({TestOutcomeExtension.class, BrowserPageExtension.class})
 public class BaseTest {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseTest.class);
@@ -48,10 +86,14 @@ public class BaseTest {
 
     // Medad Identity setup
     protected static String MEDAD_IDENTITY_BASE_URL;
-    protected static String testRealmName;
+    protected static String MEDAD_IDENTITY_MANAGEMENT_URL;
+    private static final int KC_MANAGEMENT_PORT = 9000;
+    // Realm of the running test; fixtures loaded through the managers are namespaced per test (see FixtureNamespace)
+    protected String testRealmName;
 
-    // Database network alias
-    private static final String DB_NETWORK_ALIAS = "mysql";
+    // Startup timings, reported by the database backend benchmark
+    protected static Duration databaseStartupTime = Duration.ZERO;
+    protected static Duration medadIdentityStartupTime = Duration.ZERO;
 
     // Represents Keycloak admin; used for setup
     private static Keycloak keycloakAdmin;
@@ -69,6 +111,8 @@ public class BaseTest {
     protected final static String UAE_PASS_ALIAS = "uaepass";
     protected final static String TEST_UAEPASS_CLIENT_ID = "uaepass-client";
     protected final static String TEST_UAEPASS_CLIENT_SECRET = "uaepass-client-secret";
+    // Toxiproxy between Keycloak and the UAE Pass back-channel; only started with UAEPASS_FAULT_INJECTION=true
+    protected static UaePassFaultProxy uaePassFaults;
 
     // Represents relying party (i.e. OpenID Connect client)
     protected static Client relyingPartyHTTPClient;
@@ -77,69 +121,76 @@ public class BaseTest {
     protected final static String TEST_CLIENT_SECRET = "123xyz";
     protected static String TEST_CLIENT_BASE_URL;
     protected final static String TEST_CLIENT_OIDC_CALLBACK_PATH = "/openid-connect/callback";
-    protected static String TEST_CLIENT_OIDC_CALLBACK_URL;
+    private static String TEST_CLIENT_OIDC_CALLBACK_BASE_URL;
+    // Callback of the running test, unique per test so concurrent logins can tell their redirects apart
+    protected String TEST_CLIENT_OIDC_CALLBACK_URL;
     protected final static String TEST_STATE = "some_random_state";
+    // Realms provisioned once per JVM (fixture key -> realm name), see useSharedRealm; clearRealm keeps them
+    private static final Map<String, String> sharedRealms = new ConcurrentHashMap<>();
+    // Back channel of the relying party: code exchange and ID token validation against the cached realm JWKS
+    private static RelyingPartyClient relyingPartyClient;
 
-    // Represents user browser (i.e. OpenID Connect user agent)
-    private static Playwright playwright;
-    private static Browser browser;
+    // Represents user browser (i.e. OpenID Connect user agent); EXECUTION_PROFILE=debug|fast|ci
+    protected static final ExecutionProfile executionProfile = ExecutionProfile.fromEnvironment();
     private BrowserContext context;
     protected Page page;
     protected  byte[] screenshotBytes ;
-
-
-    // MySQL Container setup
-    @SuppressWarnings("resource")
-    private static final MySQLContainer<?> database =
-            new MySQLContainer<>("mysql:8")
-                    .withNetwork(network)
-                    .withNetworkAliases(DB_NETWORK_ALIAS)
-                    .withDatabaseName(EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME"))
-                    .withUsername(EnvironmentConfig.DOTENV.get("DB_USERNAME"))
-                    .withPassword(EnvironmentConfig.DOTENV.get("DB_PASSWORD"))
-                    .waitingFor(Wait.forListeningPort())
-                    .withLogConsumer(new Slf4jLogConsumer(logger).withPrefix("MYSQL"));
+    // Compressed, de-duplicated screenshots written to Allure in the background
+    private ScreenshotRecorder screenshots;
+    // Stubs heavy theme assets in non-visual runs (ASSET_BLOCKING); null when off
+    private AssetBlocker assetBlocker;
+    // Navigation Timing and Web Vitals of the theme pages the test visits (PAGE_METRICS); null when off
+    private PageMetricsCollector pageMetrics;
+    private NavigationTimeline navigationTimeline;
+    // The test's theme pages and their budget violations, collected by checkPageBudgets; null until then
+    private List<PageMetricsCollector.PageMetrics> themePages;
+    private List<String> overBudget;
+    // Container logs between this instant and the end of the test are attached to the result
+    private long testStartedAtMillis;
+    // Keycloak /metrics when the test started, diffed when it ends (KEYCLOAK_METRICS_DIFF); null when off
+    private PrometheusMetrics metricsBefore;
+    private static final boolean METRICS_DIFF = EnvironmentConfig.getBoolean("KEYCLOAK_METRICS_DIFF", true);
+    // Database statement statistics when the test started (MYSQL_STATEMENT_PROFILING); null when off
+    private Map<String, StatementDigest> statementsBefore;
+    // Videos and traces are recorded here and only moved into Allure for retained tests
+    private static final ArtifactRetention ARTIFACT_RETENTION =
+            ArtifactRetention.fromName(EnvironmentConfig.get("ARTIFACT_RETENTION", "on-failure"));
+    private static final ExecutorService artifactCleaner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "artifact-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Path artifactDirectory;
+    // Set by TestOutcomeExtension after the test method, before the @AfterEach methods
+    boolean retainArtifacts;
+
+
+    // Database setup: DB_VENDOR selects mysql (default), postgres or dev-file
+    protected static final DatabaseBackend databaseBackend = DatabaseBackend.fromEnvironment(network);
+    private static final JdbcDatabaseContainer<?> database = databaseBackend.container();
+    protected static final StatementProfiler statementProfiler = databaseBackend.statementProfiler();
+
+    // Cluster setup: KC_CLUSTER_NODES > 1 starts extra nodes behind a local load balancer
+    protected static final int CLUSTER_NODES = EnvironmentConfig.getInt("KC_CLUSTER_NODES", 1);
+    protected static final RoutingMode CLUSTER_ROUTING =
+            RoutingMode.fromName(EnvironmentConfig.get("KC_CLUSTER_ROUTING", "sticky"));
+    private static final String KC_NODE_NETWORK_ALIAS = "keycloak-";
 
     //keycloak container setup can be added here
-    @SuppressWarnings("resource")
-    protected static final GenericContainer<?> medadIdentity =
-            new GenericContainer<>(new ImageFromDockerfile().withFileFromPath(".", Path.of(".")))
-                    .withNetwork(network)
-                    .withExposedPorts(
-                            Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTP_PORT")),
-                            Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTPS_PORT"))
-                    )
-                    .dependsOn(database)
-                    .withEnv("KC_HTTPS_PORT", EnvironmentConfig.DOTENV.get("KC_HTTPS_PORT"))
-                    .withEnv("KC_HTTP_PORT", EnvironmentConfig.DOTENV.get("KC_HTTP_PORT"))
-                    .withEnv("KC_HTTP_ENABLED", "true")
-                    .withEnv("KEYCLOAK_ADMIN", EnvironmentConfig.DOTENV.get("KC_BOOTSTRAP_ADMIN_USERNAME"))
-                    .withEnv("KEYCLOAK_ADMIN_PASSWORD", EnvironmentConfig.DOTENV.get("KC_BOOTSTRAP_ADMIN_PASSWORD"))
-                    .withEnv("KC_DB", "mysql")
-                    .withEnv("KC_DB_URL", String.format(
-                            "jdbc:mysql://%s:%d/%s",
-                            DB_NETWORK_ALIAS,
-                            3306,
-                            EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME")
-                    ))
-                    .withEnv("KC_DB_USERNAME", EnvironmentConfig.DOTENV.get("DB_USERNAME"))
-                    .withEnv("KC_DB_PASSWORD", EnvironmentConfig.DOTENV.get("DB_PASSWORD"))
-                    .withEnv("KC_HOSTNAME_STRICT", EnvironmentConfig.DOTENV.get("KC_HOSTNAME_STRICT"))
-                    .waitingFor(
-                            Wait.forHttp("/admin/master/console")
-                                    .forPort(Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTP_PORT")))
-                                    .withStartupTimeout(Duration.ofMinutes(6)))
-                    .withLogConsumer(new Slf4jLogConsumer(logger).withPrefix("KEYCLOAK"));
-
-    private static final WireMockContainer uaepass =
-            new WireMockContainer("wiremock/wiremock:3.13.1")
-                    .withNetwork(network)
-                    .withNetworkAliases(UAE_PASS_NETWORK_ALIAS)
-                    .withExposedPorts(8080)
-                    .withEnv("WIREMOCK_OPTIONS", "--global-response-templating --verbose")
-                    .withClasspathResourceMapping("uaepass", "/home/wiremock", BindMode.READ_ONLY)
-                    .waitingFor(Wait.forHttp("/__admin/mappings"))
-                    .withLogConsumer(new Slf4jLogConsumer(logger).withPrefix("UAEPASS-WIREMOCK"));
+    protected static final GenericContainer<?> medadIdentity = createMedadIdentity(1);
+    protected static final List<GenericContainer<?>> medadIdentityNodes = createMedadIdentityNodes();
+    private static final LoadBalancerContainer loadBalancer = createLoadBalancer();
+
+    // UAEPASS_MOCK_PROFILE=load tunes the mock for Keycloak load tests
+    protected static final UaePassMockProfile UAE_PASS_MOCK_PROFILE =
+            UaePassMockProfile.fromName(EnvironmentConfig.get("UAEPASS_MOCK_PROFILE", "functional"));
+    // UAEPASS_MOCK_MODE=stateful issues a code and token per login instead of the fixed ones
+    protected static final UaePassMockMode UAE_PASS_MOCK_MODE =
+            UaePassMockMode.fromName(EnvironmentConfig.get("UAEPASS_MOCK_MODE", "fixed"));
+    private static final UaePassMockContainer uaepass = createUaePassMock();
+    // In-JVM stub (UAEPASS_MOCK_MODE=in-jvm); started here so its port is exposed before any container starts
+    private static final UaePassStubServer uaePassStub = createUaePassStub();
+    private static final String HOST_GATEWAY = "host.testcontainers.internal";
 
     private static final WireMockContainer relyingParty =
             new WireMockContainer("wiremock/wiremock:3.13.1")
@@ -147,22 +198,124 @@ public class BaseTest {
                     .withEnv("WIREMOCK_OPTIONS", "--global-response-templating --verbose")
                     .withClasspathResourceMapping("relying_party", "/home/wiremock", BindMode.READ_ONLY)
                     .waitingFor(Wait.forHttp("/__admin/mappings"))
-                    .withLogConsumer(new Slf4jLogConsumer(logger).withPrefix("RELYING-PARTY-WIREMOCK"));
+                    .withLogConsumer(ContainerLogPipeline.consumer("RELYING-PARTY-WIREMOCK"));
 
 
 
 
+    @SuppressWarnings("resource")
+    private static GenericContainer<?> createMedadIdentity(int node) {
+        GenericContainer<?> container =
+                new GenericContainer<>(new ImageFromDockerfile()
+                        .withFileFromPath(".", Path.of("."))
+                        // KC_DB is a build-time option of the optimized image
+                        .withBuildArg("KC_DB", databaseBackend.vendor()))
+                        .withNetwork(network)
+                        .withNetworkAliases(KC_NODE_NETWORK_ALIAS + node)
+                        .withExposedPorts(
+                                Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTP_PORT")),
+                                Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTPS_PORT")),
+                                KC_MANAGEMENT_PORT
+                        )
+                        .withEnv("KC_HTTPS_PORT", EnvironmentConfig.DOTENV.get("KC_HTTPS_PORT"))
+                        .withEnv("KC_HTTP_PORT", EnvironmentConfig.DOTENV.get("KC_HTTP_PORT"))
+                        .withEnv("KC_HTTP_ENABLED", "true")
+                        .withEnv("KEYCLOAK_ADMIN", EnvironmentConfig.DOTENV.get("KC_BOOTSTRAP_ADMIN_USERNAME"))
+                        .withEnv("KEYCLOAK_ADMIN_PASSWORD", EnvironmentConfig.DOTENV.get("KC_BOOTSTRAP_ADMIN_PASSWORD"))
+                        .withEnv(databaseBackend.keycloakEnvironment())
+                        .withEnv("KC_HOSTNAME_STRICT", EnvironmentConfig.DOTENV.get("KC_HOSTNAME_STRICT"))
+                        // Request duration buckets, for the percentiles of the per-test metrics diff
+                        .withEnv("KC_HTTP_METRICS_HISTOGRAMS_ENABLED",
+                                EnvironmentConfig.get("KC_HTTP_METRICS_HISTOGRAMS_ENABLED", "true"))
+                        .waitingFor(
+                                Wait.forHttp("/admin/master/console")
+                                        .forPort(Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTP_PORT")))
+                                        .withStartupTimeout(Duration.ofMinutes(6)))
+                        .withLogConsumer(ContainerLogPipeline.consumer(node == 1 ? "KEYCLOAK" : "KEYCLOAK-" + node));
+        if (database != null) {
+            container.dependsOn(database);
+        }
+        // Outbound HTTP client timeouts, used for the UAE Pass token and userinfo calls
+        String idpSocketTimeout = EnvironmentConfig.get("KC_IDP_SOCKET_TIMEOUT_MILLIS", null);
+        if (idpSocketTimeout != null) {
+            container.withEnv("KC_SPI_CONNECTIONS_HTTP_CLIENT__DEFAULT__SOCKET_TIMEOUT_MILLIS", idpSocketTimeout);
+        }
+        String idpConnectTimeout = EnvironmentConfig.get("KC_IDP_CONNECT_TIMEOUT_MILLIS", null);
+        if (idpConnectTimeout != null) {
+            container.withEnv("KC_SPI_CONNECTIONS_HTTP_CLIENT__DEFAULT__ESTABLISH_CONNECTION_TIMEOUT_MILLIS", idpConnectTimeout);
+        }
+        if (CLUSTER_NODES > 1) {
+            // Nodes discover each other through the shared database and sit behind the load balancer
+            container.withEnv("KC_CACHE_STACK", "jdbc-ping")
+                    .withEnv("KC_PROXY_HEADERS", "xforwarded")
+                    // The node name is the AUTH_SESSION_ID route suffix the sticky load balancer maps to this node
+                    .withEnv("JAVA_OPTS_APPEND", "-Djboss.node.name=" + KC_NODE_NETWORK_ALIAS + node);
+        }
+        return container;
+    }
+
+    @SuppressWarnings("resource")
+    private static UaePassMockContainer createUaePassMock() {
+        if (UAE_PASS_MOCK_MODE.runsInJvm()) {
+            return null;
+        }
+        UaePassMockContainer container = new UaePassMockContainer(UAE_PASS_MOCK_MODE, UAE_PASS_MOCK_PROFILE);
+        container.withNetwork(network).withNetworkAliases(UAE_PASS_NETWORK_ALIAS);
+        return container;
+    }
+
+    private static UaePassStubServer createUaePassStub() {
+        if (!UAE_PASS_MOCK_MODE.runsInJvm()) {
+            return null;
+        }
+        UaePassStubServer stub = new UaePassStubServer(EnvironmentConfig.getInt("UAEPASS_STUB_PORT", 0));
+        stub.start();
+        Testcontainers.exposeHostPorts(stub.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop, "uaepass-stub-shutdown"));
+        return stub;
+    }
+
+    private static List<GenericContainer<?>> createMedadIdentityNodes() {
+        if (CLUSTER_NODES > 1 && database == null) {
+            throw new IllegalStateException("KC_CLUSTER_NODES > 1 needs a shared database; "
+                    + databaseBackend.vendor() + " is embedded in each node");
+        }
+        List<GenericContainer<?>> nodes = new ArrayList<>();
+        nodes.add(medadIdentity);
+        for (int node = 2; node <= CLUSTER_NODES; node++) {
+            nodes.add(createMedadIdentity(node));
+        }
+        return nodes;
+    }
+
+    private static LoadBalancerContainer createLoadBalancer() {
+        if (CLUSTER_NODES <= 1) {
+            return null;
+        }
+        List<String> upstreams = new ArrayList<>();
+        for (int node = 1; node <= CLUSTER_NODES; node++) {
+            upstreams.add(KC_NODE_NETWORK_ALIAS + node + ":" + EnvironmentConfig.DOTENV.get("KC_HTTP_PORT"));
+        }
+        return new LoadBalancerContainer(network, upstreams, CLUSTER_ROUTING);
+    }
+
+    /**
+     * Start the database container once and remember how long it took
+     */
+    private static void startDatabase() {
+        if (database == null || database.isRunning()) {
+            return;
+        }
+        long started = System.nanoTime();
+        database.start();
+        databaseStartupTime = Duration.ofNanos(System.nanoTime() - started);
+        logger.info("Database '{}' started in {} ms at URL: {}",
+                databaseBackend.vendor(), databaseStartupTime.toMillis(), database.getJdbcUrl());
+    }
+
     @BeforeAll
     static void setDatabase(){
-        database.start();
-        String jdbcUrl = String.format(
-                "jdbc:mysql://%s:%d/%s",
-                DB_NETWORK_ALIAS,
-                3306,
-                database.getDatabaseName()
-        );
-        logger.info(",JDBC URL: {}", jdbcUrl);
-        logger.info("Database started at URL: {}", database.getJdbcUrl());
+        startDatabase();
 
 
         // Initialize RealmConfigurationManager and take username and password from env variables
@@ -172,22 +325,48 @@ public class BaseTest {
 
     @BeforeAll
     static void setupMedadIdentity() {
+        startDatabase();
 
+        long started = System.nanoTime();
+        // The first node creates the schema; the others join the cluster afterwards
         medadIdentity.start();
-
-        MEDAD_IDENTITY_BASE_URL = String.format(
+        Startables.deepStart(medadIdentityNodes.subList(1, medadIdentityNodes.size())).join();
+        medadIdentityStartupTime = Duration.ofNanos(System.nanoTime() - started);
+        logger.info("Medad Identity ({} node(s)) started in {} ms using database '{}'",
+                CLUSTER_NODES, medadIdentityStartupTime.toMillis(), databaseBackend.vendor());
+
+        if (loadBalancer != null) {
+            loadBalancer.start();
+            MEDAD_IDENTITY_BASE_URL = loadBalancer.getBaseUrl();
+            logger.info("Medad Identity cluster behind {} load balancer", CLUSTER_ROUTING);
+        } else {
+            MEDAD_IDENTITY_BASE_URL = String.format(
+                    "http://%s:%d",
+                    medadIdentity.getHost(),
+                    medadIdentity.getMappedPort(
+                            Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTP_PORT"))
+                    )
+            );
+        }
+        MEDAD_IDENTITY_MANAGEMENT_URL = String.format(
                 "http://%s:%d",
                 medadIdentity.getHost(),
-                medadIdentity.getMappedPort(
-                        Integer.parseInt(EnvironmentConfig.DOTENV.get("KC_HTTP_PORT"))
-                )
+                medadIdentity.getMappedPort(KC_MANAGEMENT_PORT)
         );
         logger.info("keycloak Medad Identity url: {}",MEDAD_IDENTITY_BASE_URL);
     }
     @AfterAll
     static void cleanupMedadIdentity() {
-        medadIdentity.stop();
-        database.stop();
+        // Shared realms and their stored logins go with the database; the next class provisions them again
+        sharedRealms.values().forEach(StorageStateCache::evictRealm);
+        sharedRealms.clear();
+        if (loadBalancer != null) {
+            loadBalancer.stop();
+        }
+        medadIdentityNodes.forEach(GenericContainer::stop);
+        if (database != null) {
+            database.stop();
+        }
     }
 
 
@@ -195,26 +374,47 @@ public class BaseTest {
 
     @BeforeAll
     static void setupUAEPass() {
-        uaepass.start();
-        UAE_PASS_HOST_BASE_URL = uaepass.getUrl("/idshub");
+        String upstreamHost = UAE_PASS_NETWORK_ALIAS;
+        int upstreamPort = 8080;
+        if (uaePassStub != null) {
+            // The browser calls the stub on localhost, Keycloak through the Testcontainers host gateway
+            UAE_PASS_HOST_BASE_URL = uaePassStub.baseUrl("localhost");
+            upstreamHost = HOST_GATEWAY;
+            upstreamPort = uaePassStub.getPort();
+        } else {
+            uaepass.start();
+            UAE_PASS_HOST_BASE_URL = uaepass.getBaseUrl();
+        }
         UAE_PASS_INTERNAL_BASE_URL = String.format(
                 "http://%s:%d/idshub",
-                UAE_PASS_NETWORK_ALIAS,
-                8080
+                upstreamHost,
+                upstreamPort
         );
         logger.info("UAE Pass host URL: {}", UAE_PASS_HOST_BASE_URL);
         logger.info("UAE Pass internal URL: {}", UAE_PASS_INTERNAL_BASE_URL);
+        logger.info("UAE Pass mock profile: {}, mode: {}", UAE_PASS_MOCK_PROFILE, UAE_PASS_MOCK_MODE);
+
+        if (EnvironmentConfig.getBoolean("UAEPASS_FAULT_INJECTION", false)) {
+            uaePassFaults = new UaePassFaultProxy(network, upstreamHost, upstreamPort);
+            uaePassFaults.start();
+        }
     }
     @AfterAll
     static void cleanupUAEPass() {
-        uaepass.stop();
+        if (uaePassFaults != null) {
+            uaePassFaults.stop();
+        }
+        // The in-JVM stub lives as long as the JVM (see createUaePassStub); its exposed port cannot move
+        if (uaepass != null) {
+            uaepass.stop();
+        }
     }
 
     @BeforeAll
     static void setupRelyingParty() {
         relyingParty.start();
         TEST_CLIENT_BASE_URL = relyingParty.getBaseUrl();
-        TEST_CLIENT_OIDC_CALLBACK_URL	= relyingParty.getUrl(TEST_CLIENT_OIDC_CALLBACK_PATH);
+        TEST_CLIENT_OIDC_CALLBACK_BASE_URL = relyingParty.getUrl(TEST_CLIENT_OIDC_CALLBACK_PATH);
         relyingPartyHTTPClient = ClientBuilder.newClient();
         logger.info("Relying Party client initialized");
     }
@@ -224,49 +424,216 @@ public class BaseTest {
         relyingParty.stop();
     }
 
-    @BeforeAll
-    static void setupUserAgent() {
-        playwright = Playwright.create();
-        browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(false).setSlowMo(500));
+    @BeforeEach
+    void markTestStart() {
+        testStartedAtMillis = System.currentTimeMillis();
     }
-    @AfterAll
-    static void cleanupUserAgent() {
-        browser.close();
-        playwright.close();
+
+    @BeforeEach
+    void scrapeMetricsBeforeTest() {
+        metricsBefore = null;
+        if (METRICS_DIFF) {
+            try {
+                metricsBefore = scrapeKeycloakMetrics();
+            } catch (RuntimeException e) {
+                logger.warn("⚠ Keycloak metrics not scraped, no diff for this test: {}", e.getMessage());
+            }
+        }
     }
 
     @BeforeEach
-    void setupUserBrowser() {
-        //context = browser.newContext();
-        context = browser.newContext(
-                new Browser.NewContextOptions()
-                        .setRecordVideoDir(Paths.get("target/videos"))
-                        .setRecordVideoSize(1280, 720)
-        );
-       // Page page = context.newPage();
-        page = context.newPage();
+    void snapshotStatementsBeforeTest() {
+        statementsBefore = null;
+        if (statementProfiler != null) {
+            try {
+                statementsBefore = statementProfiler.snapshot();
+            } catch (RuntimeException e) {
+                logger.warn("⚠ Database statements not profiled for this test: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Called by TestOutcomeExtension right after the test method, like attachMetricsDiff
+     */
+    void attachStatementProfile() {
+        if (statementsBefore == null) {
+            return;
+        }
+        try {
+            Allure.addAttachment("Database statements", "text/plain",
+                    statementProfiler.report(statementsBefore, testStartedAtMillis));
+        } catch (RuntimeException e) {
+            logger.warn("⚠ Database statement profile skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Called by TestOutcomeExtension right after the test method, so realm cleanup is not part of the diff
+     */
+    void attachMetricsDiff() {
+        if (metricsBefore == null) {
+            return;
+        }
+        try {
+            Allure.addAttachment("Keycloak metrics diff", "text/plain",
+                    MetricsDiff.between(metricsBefore, scrapeKeycloakMetrics()).describe());
+        } catch (RuntimeException e) {
+            logger.warn("⚠ Keycloak metrics diff skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One scrape of the management /metrics of every Keycloak node, combined so sums cover the cluster
+     */
+    protected static PrometheusMetrics scrapeKeycloakMetrics() {
+        return PrometheusMetrics.combine(medadIdentityNodes.stream()
+                .map(node -> PrometheusMetrics.scrape(String.format("http://%s:%d/metrics",
+                        node.getHost(), node.getMappedPort(KC_MANAGEMENT_PORT))))
+                .toList());
+    }
+
+    @BeforeEach
+    void openFixtureNamespace() {
+        String suffix = FixtureNamespace.open();
+        TEST_CLIENT_OIDC_CALLBACK_URL = suffix == null
+                ? TEST_CLIENT_OIDC_CALLBACK_BASE_URL
+                : TEST_CLIENT_OIDC_CALLBACK_BASE_URL + "/" + suffix;
     }
 
     @AfterEach
-    void attachVideo() throws IOException {
-        if (page != null && page.video() != null) {
-            Path videoPath = page.video().path();
-            page.close();   // finalize video
-            context.close(); // finalize context
-
-            try (FileInputStream fis = new FileInputStream(videoPath.toFile())) {
-                Allure.addAttachment("Test Video", "video/webm", fis, ".webm");
+    void attachContainerLogs() {
+        ContainerLogPipeline.attachSlice("Container logs", testStartedAtMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * @param page Injected by BrowserPageExtension from this worker thread's browser pool; null for
+     *             {@link WithoutBrowser} classes, which then get no page, recordings or page metrics
+     */
+    @BeforeEach
+    void setupUserBrowser(Page page) {
+        retainArtifacts = false;
+        themePages = null;
+        overBudget = List.of();
+        if (page == null) {
+            return;
+        }
+        artifactDirectory = Paths.get("target", "artifacts-tmp", UUID.randomUUID().toString());
+        this.page = page;
+        context = page.context();
+        screenshots = new ScreenshotRecorder();
+        assetBlocker = AssetBlocker.install(page, executionProfile);
+        pageMetrics = PageMetricsCollector.install(page, assetBlocker != null);
+        navigationTimeline = NavigationTimeline.install(page);
+        BrowserPool.clearStorageOf(MEDAD_IDENTITY_BASE_URL);
+        BrowserPool.clearStorageOf(TEST_CLIENT_BASE_URL);
+        if (executionProfile.tracing()) {
+            context.tracing().start(new Tracing.StartOptions().setScreenshots(true).setSnapshots(true));
+        }
+    }
+
+    /**
+     * Close the test's page and attach its video and trace if the test is retained
+     * (see ARTIFACT_RETENTION); otherwise the temporary recordings are deleted in the background.
+     * The browser context stays open and is reset for the worker's next test.
+     */
+    @AfterEach
+    void closeUserBrowser(TestInfo testInfo) throws IOException {
+        if (page == null) {
+            return;
+        }
+        screenshots.await();
+        if (assetBlocker != null && assetBlocker.blockedRequests() > 0) {
+            logger.info(assetBlocker.summary());
+            Allure.addAttachment("Blocked assets", "text/plain", assetBlocker.summary());
+        }
+        if (themePages == null) {
+            // TestOutcomeExtension did not get to it, e.g. a @BeforeEach failed
+            checkPageBudgets();
+        }
+        if (!themePages.isEmpty()) {
+            Allure.addAttachment("Page metrics", "text/plain", PageMetricsCollector.describe(themePages));
+        }
+        boolean keep = retainArtifacts || ARTIFACT_RETENTION == ArtifactRetention.ALWAYS;
+        String artifactName = testInfo.getDisplayName().replaceAll("[^A-Za-z0-9._-]", "_");
+        if (executionProfile.tracing()) {
+            if (keep) {
+                Path tracePath = artifactDirectory.resolve(artifactName + ".zip");
+                context.tracing().stop(new Tracing.StopOptions().setPath(tracePath));
+                try (FileInputStream fis = new FileInputStream(tracePath.toFile())) {
+                    Allure.addAttachment("Playwright Trace", "application/zip", fis, ".zip");
+                }
+            } else {
+                // Stopping without a path discards the trace instead of writing it
+                context.tracing().stop();
             }
         }
+        Video video = page.video();
+        page.close();
+        if (video != null) {
+            // saveAs and delete wait until the closed page's video is fully written
+            if (keep) {
+                Path videoPath = artifactDirectory.resolve(artifactName + ".webm");
+                video.saveAs(videoPath);
+                try (FileInputStream fis = new FileInputStream(videoPath.toFile())) {
+                    Allure.addAttachment("Test Video", "video/webm", fis, ".webm");
+                }
+            }
+            video.delete();
+        }
+        deleteInBackground(artifactDirectory);
+        assertTrue(overBudget.isEmpty(), "Theme pages over their load budget:\n" + String.join("\n", overBudget));
+    }
+
+    /**
+     * Collect the test's theme page metrics and check them against the page budgets. Called by
+     * TestOutcomeExtension before it decides retention, so a test over budget keeps its trace and video.
+     * @return true if a page is over its budget
+     */
+    boolean checkPageBudgets() {
+        themePages = List.of();
+        overBudget = List.of();
+        if (pageMetrics != null && page != null) {
+            pageMetrics.flush(page);
+            themePages = pageMetrics.finish();
+            overBudget = pageMetrics.violations(themePages);
+        }
+        return !overBudget.isEmpty();
     }
+
+    private static void deleteInBackground(Path directory) {
+        artifactCleaner.submit(() -> {
+            if (!Files.exists(directory)) {
+                return;
+            }
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                logger.warn("⚠ Could not delete test artifacts in {}", directory, e);
+            }
+        });
+    }
+
     @AfterEach
     void clearRealm() {
-        realmConfigManager.deleteRealm(testRealmName);
+        if (testRealmName != null && !sharedRealms.containsValue(testRealmName)) {
+            realmConfigManager.deleteRealm(testRealmName);
+            StorageStateCache.evictRealm(testRealmName);
+            if (relyingPartyClient != null) {
+                relyingPartyClient.getJwks().evict(testRealmName);
+            }
+        }
+        FixtureNamespace.close();
     }
 
     public void captureScreenshot(String name, Page page) {
-        byte[] screenshot = page.screenshot();
-        Allure.addAttachment(name, new ByteArrayInputStream(screenshot));
+        if (pageMetrics != null) {
+            pageMetrics.flush(page);
+        }
+        if (!executionProfile.screenshots()) {
+            return;
+        }
+        screenshots.capture(name, page);
     }
 
     public void attachVideo(Path videoPath) {
@@ -317,6 +684,63 @@ public class BaseTest {
     protected static UserManager getUserManager(){
         return userManager;
     }
+    protected static synchronized RelyingPartyClient getRelyingPartyClient() {
+        if (relyingPartyClient == null) {
+            relyingPartyClient = new RelyingPartyClient(MEDAD_IDENTITY_BASE_URL, TEST_CLIENT_ID, TEST_CLIENT_SECRET);
+        }
+        return relyingPartyClient;
+    }
+
+    /**
+     * Use a realm that outlives the test, for scenarios that only check post-login behaviour and can reuse
+     * a stored login (see restoreLogin). The first caller creates the realm and the test client, whose
+     * redirect URI accepts every test's callback, then runs the provisioning (IdP, users).
+     * @param realmKey Realm fixture in realm-configs.json
+     * @param provisioning Called once with the realm name
+     */
+    protected String useSharedRealm(String realmKey, Consumer<String> provisioning) {
+        testRealmName = sharedRealms.computeIfAbsent(realmKey, key -> {
+            JsonNode realmNode = getRealmConfigManager().getRealmNodeByName("realm-configs.json", key);
+            String realmName = FixtureNamespace.fixtureName(realmNode.get("realm").asText()) + "--shared";
+            ((ObjectNode) realmNode).put("realm", realmName);
+            assertTrue(getRealmConfigManager().createRealmFromNode(realmNode), "Shared realm should be created");
+            assertTrue(getClientManager().createClient(realmName, TEST_CLIENT_ID, TEST_CLIENT_NAME, TEST_CLIENT_SECRET,
+                    TEST_CLIENT_OIDC_CALLBACK_BASE_URL + "/*"), "Shared realm client should be created");
+            provisioning.accept(realmName);
+            logger.info("✓ Shared realm '{}' provisioned", realmName);
+            return realmName;
+        });
+        return testRealmName;
+    }
+
+    /**
+     * Start the test already logged in as the user, from the state stored by rememberLogin
+     * @return false if there is no stored login or its Keycloak session has ended; log in normally then
+     */
+    protected boolean restoreLogin(String username, String idpAlias) {
+        return StorageStateCache.restore(new StorageStateCache.Key(testRealmName, username, idpAlias), context,
+                key -> getUserManager().getUserSessionIds(key.realm(), key.username()));
+    }
+
+    /**
+     * Store the browser's login state after a real login, for restoreLogin in later tests
+     */
+    protected void rememberLogin(String username, String idpAlias) {
+        StorageStateCache.save(new StorageStateCache.Key(testRealmName, username, idpAlias), context,
+                getUserManager().getUserSessionIds(testRealmName, username));
+    }
+
+    /**
+     * Redeem the code the browser landed on at the relying-party callback and validate the ID token;
+     * the browser phases of the page's last brokered login, token exchange and validation timings are attached
+     */
+    protected RelyingPartyClient.Login completeRelyingPartyLogin() {
+        RelyingPartyClient.Login login = getRelyingPartyClient().completeFromCallback(testRealmName,
+                TEST_CLIENT_OIDC_CALLBACK_URL, page.url(),
+                navigationTimeline.brokerLoginPhases(UAE_PASS_HOST_BASE_URL, TEST_CLIENT_OIDC_CALLBACK_URL));
+        Allure.addAttachment("Relying party login", "text/plain", login.describe());
+        return login;
+    }
 
     /**
      * Open browser automatically
@@ -338,23 +762,32 @@ public class BaseTest {
 
     // method to build medad SSO URL
     public String createMedadSSO(){
+        return createMedadSSO(null);
+    }
+
+    /**
+     * Medad SSO URL carrying a login_hint; with the IdP's loginHint option on, Keycloak passes it to
+     * UAE Pass, which the stateful mock uses to pick the identity
+     * @param loginHint Hint to send, or null for none
+     */
+    public String createMedadSSO(String loginHint){
         UriBuilder baseOidcUriBuilder = UriBuilder.fromUri(MEDAD_IDENTITY_BASE_URL)
                 .path("realms")
                 .path(testRealmName)
                 .path("protocol")
                 .path("openid-connect");
 
-        String authUrl = baseOidcUriBuilder.clone()
+        UriBuilder authUrl = baseOidcUriBuilder.clone()
                 .path("auth")
                 .queryParam("response_type", "code")
                 .queryParam("redirect_uri", TEST_CLIENT_OIDC_CALLBACK_URL)
                 .queryParam("state", TEST_STATE)
                 .queryParam("client_id", TEST_CLIENT_ID)
-                .queryParam("scope", "openid profile email")
-                .build()
-                .toString();
-
-        return authUrl;
+                .queryParam("scope", "openid profile email");
+        if (loginHint != null) {
+            authUrl.queryParam("login_hint", loginHint);
+        }
+        return authUrl.build().toString();
     }
 
 
@@ -363,8 +796,4 @@ public class BaseTest {
     void cleanupRealm() {
      //   keycloakAdmin.realm(testRealmName).remove();
     }
-    @AfterEach
-    void cleanupUserBrowser() {
-        context.close();
-    }
 }
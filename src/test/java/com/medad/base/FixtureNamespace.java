@@ -0,0 +1,76 @@
+package com.medad.base;
+
+import com.medad.config.EnvironmentConfig;
+
+import java.util.UUID;
+
+/**
+ * Per-test suffix for fixtures that would otherwise collide between concurrently running tests
+ * Responsibility: rewrite realm names and relying-party callback paths loaded from the JSON fixtures
+ *
+ * The namespace is bound to the thread running the test (BaseTest opens it before each test and closes it
+ * after), so the shared managers can apply it without every test passing it around.
+ * FIXTURE_NAMESPACE=false keeps the plain fixture names, e.g. to inspect a realm by hand.
+ */
+public final class FixtureNamespace {
+
+    private static final boolean ENABLED = EnvironmentConfig.getBoolean("FIXTURE_NAMESPACE", true);
+    private static final String SEPARATOR = "--";
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private FixtureNamespace() {
+    }
+
+    /**
+     * Open a fresh namespace on the calling thread
+     * @return The suffix, or null when namespacing is disabled
+     */
+    static String open() {
+        if (!ENABLED) {
+            CURRENT.remove();
+            return null;
+        }
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        CURRENT.set(suffix);
+        return suffix;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Suffix of the calling thread's test, or null outside a test or when disabled
+     */
+    public static String suffix() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Namespaced name of a realm fixture, e.g. "medad" -> "medad--1a2b3c4d"
+     */
+    public static String realm(String fixtureName) {
+        String suffix = CURRENT.get();
+        if (suffix == null || fixtureName.endsWith(SEPARATOR + suffix)) {
+            return fixtureName;
+        }
+        return fixtureName + SEPARATOR + suffix;
+    }
+
+    /**
+     * Fixture name a realm was created from, whichever test or thread created it,
+     * e.g. "medad--1a2b3c4d" or "medad--shared" -> "medad"; fixture names never contain "--"
+     */
+    public static String fixtureName(String realmName) {
+        int separator = realmName.indexOf(SEPARATOR);
+        return separator < 0 ? realmName : realmName.substring(0, separator);
+    }
+
+    /**
+     * Namespaced callback path, e.g. "/openid-connect/callback" -> "/openid-connect/callback/1a2b3c4d"
+     */
+    public static String path(String basePath) {
+        String suffix = CURRENT.get();
+        return suffix == null ? basePath : basePath + "/" + suffix;
+    }
+}
@@ -0,0 +1,33 @@
+package com.medad.base;
+
+import com.medad.config.EnvironmentConfig;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLocksProvider;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lock for test methods whose attachments diff server-wide state before and after the test
+ * Responsibility: run such methods alone while the Keycloak metrics diff (KEYCLOAK_METRICS_DIFF) or the MySQL
+ * statement profile (MYSQL_STATEMENT_PROFILING) is on, since /metrics, performance_schema digests and the slow log
+ * include the work of every test running at the same time
+ *
+ * Use with @ResourceLock(providers = KeycloakMetricsLock.class) on classes annotated @Execution(CONCURRENT);
+ * with both off their methods run in parallel.
+ */
+public class KeycloakMetricsLock implements ResourceLocksProvider {
+
+    private static final String KEYCLOAK_METRICS = "keycloak-metrics";
+    private static final boolean METRICS_DIFF = EnvironmentConfig.getBoolean("KEYCLOAK_METRICS_DIFF", true);
+    // Read here rather than from BaseTest.statementProfiler, whose static setup starts the containers
+    private static final boolean STATEMENT_PROFILE =
+            "mysql".equalsIgnoreCase(EnvironmentConfig.get("DB_VENDOR", "mysql"))
+                    && EnvironmentConfig.getBoolean("MYSQL_STATEMENT_PROFILING", true);
+
+    @Override
+    public Set<Lock> provideForMethod(List<Class<?>> enclosingInstanceTypes, Class<?> testClass, Method testMethod) {
+        return METRICS_DIFF || STATEMENT_PROFILE ? Set.of(new Lock(KEYCLOAK_METRICS, ResourceAccessMode.READ_WRITE)) : Set.of();
+    }
+}
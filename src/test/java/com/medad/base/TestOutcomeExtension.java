@@ -0,0 +1,25 @@
+package com.medad.base;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Tells {@link BaseTest} whether the test method failed before its @AfterEach methods run
+ * Responsibility: decide per test whether browser artifacts are retained, and close the Keycloak metrics and
+ * database statement windows before cleanup adds its own requests
+ */
+public class TestOutcomeExtension implements AfterTestExecutionCallback {
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        boolean flagged = context.getRequiredTestMethod().isAnnotationPresent(RetainArtifacts.class)
+                || context.getRequiredTestClass().isAnnotationPresent(RetainArtifacts.class);
+        if (context.getRequiredTestInstance() instanceof BaseTest test) {
+            // Budget violations fail the test in @AfterEach, so they count as a failure here
+            boolean overBudget = test.checkPageBudgets();
+            test.retainArtifacts = context.getExecutionException().isPresent() || overBudget || flagged;
+            test.attachMetricsDiff();
+            test.attachStatementProfile();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.medad.base;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.mock.UaePassMockMode;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLocksProvider;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lock for test methods that log in through the UAE Pass mock
+ * Responsibility: serialize UAE Pass logins when the mock has a single code lifecycle (UAEPASS_MOCK_MODE=fixed);
+ * with a code per login the methods take no lock and run concurrently
+ *
+ * Use with @Execution(CONCURRENT) and @ResourceLock(providers = UaePassLoginLock.class) on the test class.
+ */
+public class UaePassLoginLock implements ResourceLocksProvider {
+
+    private static final String FIXED_MOCK = "uaepass-fixed-mock";
+    // Read here rather than from BaseTest, whose static setup starts the containers
+    private static final UaePassMockMode MODE =
+            UaePassMockMode.fromName(EnvironmentConfig.get("UAEPASS_MOCK_MODE", "fixed"));
+
+    @Override
+    public Set<Lock> provideForMethod(List<Class<?>> enclosingInstanceTypes, Class<?> testClass, Method testMethod) {
+        return MODE.issuesCodePerLogin() ? Set.of() : Set.of(new Lock(FIXED_MOCK, ResourceAccessMode.READ_WRITE));
+    }
+}
@@ -0,0 +1,231 @@
+package com.medad.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.medad.base.BaseTest;
+import com.medad.config.EnvironmentConfig;
+import com.medad.metrics.LatencyRecorder;
+import com.medad.mock.SyntheticIdentity;
+import com.medad.protocol.BrokerLoginDriver;
+import com.medad.protocol.BrokerLoginResult;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.AriaRole;
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shared fixture for benchmarks that measure the UAE Pass brokered login
+ * Responsibility: provision the "medad" realm with a linked user and time repeated browser logins
+ */
+public abstract class BrokeredLoginBenchmark extends BaseTest {
+
+    protected static final Duration DEFAULT_LOGIN_TIMEOUT = Duration.ofSeconds(30);
+    protected static final String LOAD_USER_PASSWORD = "Password123!";
+
+    // Shared by the BrokerLoginDriver instances of every HTTP load run in the JVM; one driver (cookie jar) per login.
+    // Static so the connection pool and its executor are created once rather than leaked per test instance
+    protected static final HttpClient brokerHttpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    /**
+     * Whether the test logs in many identities at once and so needs a mock issuing a code per login
+     */
+    protected boolean needsCodePerLogin() {
+        return false;
+    }
+
+    @BeforeEach
+    protected void requireCodePerLogin() {
+        if (needsCodePerLogin()) {
+            Assumptions.assumeTrue(UAE_PASS_MOCK_MODE.issuesCodePerLogin(),
+                    "Set UAEPASS_MOCK_MODE=stateful or in-jvm to run " + getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Create realm "medad", the test client and the given UAE Pass IdPs, each forwarding login_hint
+     * @param idpAliases Aliases in idp-configs.json
+     */
+    protected void provisionBrokerRealm(String... idpAliases) {
+        provisionBrokerRealm(getRealmConfigManager().getRealmNodeByName("realm-configs.json", "medad"), idpAliases);
+    }
+
+    /**
+     * Same as {@link #provisionBrokerRealm(String...)} from an already loaded (and possibly adjusted) realm node
+     */
+    protected void provisionBrokerRealm(JsonNode realmNode, String... idpAliases) {
+        testRealmName = realmNode.get("realm").asText();
+        assertTrue(getRealmConfigManager().createRealmFromNode(realmNode), "Realm should be created");
+        assertTrue(getClientManager().createClient(testRealmName, TEST_CLIENT_ID, TEST_CLIENT_NAME,
+                TEST_CLIENT_SECRET, TEST_CLIENT_OIDC_CALLBACK_URL), "Client should be created");
+        for (String alias : idpAliases) {
+            JsonNode idpNode = getIdentityProviderManager().getIdentityProviderNodeByAlias("idp-configs.json", alias);
+            assertTrue(getIdentityProviderManager().createIdentityProviderFromNodeWithUrls(testRealmName, idpNode,
+                    UAE_PASS_HOST_BASE_URL, UAE_PASS_INTERNAL_BASE_URL, Map.of("loginHint", "true")),
+                    "Identity provider should be created: " + alias);
+        }
+    }
+
+    /**
+     * Create realm "medad", the test client, the automatic-linking UAE Pass IdP and the linked user
+     * @param timing Optional recorder for the realm/client/IdP creation time
+     */
+    protected void provisionLinkedUserRealm(LatencyRecorder timing) {
+        provisionLinkedUserRealm(timing, Map.of());
+    }
+
+    /**
+     * Same as {@link #provisionLinkedUserRealm(LatencyRecorder)}, overriding UAE Pass IdP config entries
+     * @param idpConfigOverrides e.g. tokenUrl/userInfoUrl pointing at a fault-injection proxy
+     */
+    protected void provisionLinkedUserRealm(LatencyRecorder timing, Map<String, String> idpConfigOverrides) {
+        JsonNode realmNode = getRealmConfigManager().getRealmNodeByName("realm-configs.json", "medad");
+        testRealmName = realmNode.get("realm").asText();
+        JsonNode idpNode = getIdentityProviderManager().getIdentityProviderNodeByAlias("idp-configs.json", "uaepass");
+
+        Runnable provisioning = () -> {
+            assertTrue(getRealmConfigManager().createRealmFromNode(realmNode), "Realm should be created");
+            assertTrue(getClientManager().createClient(testRealmName, TEST_CLIENT_ID, TEST_CLIENT_NAME,
+                    TEST_CLIENT_SECRET, TEST_CLIENT_OIDC_CALLBACK_URL), "Client should be created");
+            assertTrue(getIdentityProviderManager().createIdentityProviderFromNodeWithUrls(testRealmName,
+                    idpNode, UAE_PASS_HOST_BASE_URL, UAE_PASS_INTERNAL_BASE_URL, idpConfigOverrides),
+                    "IdP should be created");
+        };
+        if (timing != null) {
+            timing.time(provisioning);
+        } else {
+            provisioning.run();
+        }
+
+        JsonNode userNode = getUserManager().getUserNodeByUsername("users.json", "LinkedUser");
+        assertNotNull(getUserManager().createUserFromNode(testRealmName, userNode), "User should be created");
+    }
+
+    /**
+     * Log in through UAE Pass in the browser the given number of times
+     * SSO cookies are cleared before every iteration so each login goes through the broker again.
+     */
+    protected void repeatBrowserLogin(int iterations, LatencyRecorder timing) {
+        for (int i = 0; i < iterations; i++) {
+            browserLogin(timing, DEFAULT_LOGIN_TIMEOUT);
+        }
+    }
+
+    /**
+     * One UAE Pass browser login, from the Medad SSO URL to the relying-party callback
+     * @param timing Successful logins are recorded as samples, failed ones as errors
+     * @param timeout How long to wait for the callback before counting the login as failed
+     * @return true if the callback was reached
+     */
+    protected boolean browserLogin(LatencyRecorder timing, Duration timeout) {
+        page.context().clearCookies();
+        try {
+            timing.time(() -> {
+                page.navigate(createMedadSSO());
+                page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions()
+                        .setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
+                page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**",
+                        new Page.WaitForURLOptions().setTimeout(timeout.toMillis()));
+            });
+            return true;
+        } catch (RuntimeException e) {
+            System.out.println("⚠ Login failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ==================== HTTP load helpers ====================
+
+    /**
+     * UAE Pass identity of the n-th pre-linked load user (login_hint, username and uuid "load-linked-n")
+     */
+    protected static SyntheticIdentity linkedIdentity(int index) {
+        return SyntheticIdentity.of("load-linked-" + index);
+    }
+
+    /**
+     * Create users load-linked-0..count-1, each linked to its UAE Pass identity
+     */
+    protected void createLinkedUsers(int count) throws Exception {
+        createUsers(count, i -> {
+            SyntheticIdentity identity = linkedIdentity(i);
+            String userId = createUser(identity);
+            assertTrue(getUserManager().createFederatedIdentity(testRealmName, userId, UAE_PASS_ALIAS,
+                    identity.uuid(), identity.email()), "User should be linked to UAE Pass");
+        });
+    }
+
+    /**
+     * Create an unlinked user with the identity's username and email and LOAD_USER_PASSWORD
+     */
+    protected String createUser(SyntheticIdentity identity) {
+        String userId = getUserManager().createUser(testRealmName, identity.loginHint(), identity.email(),
+                identity.firstName(), identity.lastName(), LOAD_USER_PASSWORD);
+        assertNotNull(userId, "User should be created: " + identity.loginHint());
+        return userId;
+    }
+
+    /**
+     * Run the creation for 0..count-1 on virtual threads, a few at a time so the admin API is not the bottleneck
+     */
+    protected static void createUsers(int count, IntConsumer creation) throws Exception {
+        Semaphore permits = new Semaphore(EnvironmentConfig.getInt("LOAD_PROVISIONING_CONCURRENCY", 16));
+        List<Future<?>> creations = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                creations.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        creation.accept(index);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> creation : creations) {
+            creation.get();
+        }
+    }
+
+    /**
+     * One browserless login as the identity (sent as login_hint, so the mock must issue a code per login)
+     * @return true if the callback was reached with a code
+     */
+    protected boolean httpLogin(BrokerLoginDriver driver, SyntheticIdentity identity) {
+        BrokerLoginResult result = driver.login(createMedadSSO(identity.loginHint()));
+        if (!result.reachedCallback() || result.code() == null) {
+            System.out.println("⚠ " + identity.loginHint() + " stopped at " + result.lastPage()
+                    + " (" + result.lastStatus() + ", error=" + result.error() + ")");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Print the report and attach it to the Allure result
+     */
+    protected void attachReport(String name, String report) {
+        System.out.println("\n" + report);
+        Allure.addAttachment(name, "text/plain", report);
+    }
+}
@@ -0,0 +1,130 @@
+package com.medad.benchmark;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.database.StatementDigest;
+import com.medad.load.OpenModelLoad;
+import com.medad.metrics.MetricsDiff;
+import com.medad.metrics.PrometheusMetrics;
+import com.medad.mock.SyntheticIdentity;
+import com.medad.protocol.BrokerLoginDriver;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UAE Pass brokered login throughput with an open-model load: logins arrive at LOAD_ARRIVALS_PER_SECOND
+ * over HTTP (BrokerLoginDriver, no browser), each on its own virtual thread.
+ *   mvn test -Pbenchmark -Dtest=BrokeredLoginLoadTest -DUAEPASS_MOCK_MODE=in-jvm -DLOAD_ARRIVALS_PER_SECOND=50
+ *   mvn test -Pbenchmark -Dtest=BrokeredLoginLoadTest -DUAEPASS_MOCK_MODE=stateful -DUAEPASS_MOCK_PROFILE=load -DLOAD_FLOW_MIX=8,1,1
+ * Every login uses its own UAE Pass identity (login_hint), so the mock must issue a code per login.
+ * LOAD_FLOW_MIX weighs automatic linking, manual linking and registration.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class BrokeredLoginLoadTest extends BrokeredLoginBenchmark {
+
+    private static final double ARRIVALS_PER_SECOND =
+            Double.parseDouble(EnvironmentConfig.get("LOAD_ARRIVALS_PER_SECOND", "20"));
+    private static final Duration WARMUP = Duration.ofSeconds(EnvironmentConfig.getInt("LOAD_WARMUP_SECONDS", 30));
+    private static final Duration MEASUREMENT =
+            Duration.ofSeconds(EnvironmentConfig.getInt("LOAD_DURATION_SECONDS", 120));
+    private static final int MAX_IN_FLIGHT = EnvironmentConfig.getInt("LOAD_MAX_IN_FLIGHT", 5000);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(EnvironmentConfig.get("LOAD_MAX_ERROR_RATE", "0.01"));
+    private static final int LINKED_USER_POOL = EnvironmentConfig.getInt("LOAD_LINKED_USERS", 200);
+
+    private static final String AUTOMATIC_LINKING = "Automatic linking login";
+    private static final String MANUAL_LINKING = "Manual linking login";
+    private static final String REGISTRATION = "Registration login";
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Load test: UAE Pass brokered logins at a fixed arrival rate")
+    @Description("Starts automatic linking, manual linking and registration logins at a fixed rate on virtual threads and reports p50/p95/p99 latency, throughput and error rate per flow after a warmup.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Brokered login load")
+    public void loadBrokeredLogins() {
+        int[] mix = flowMix();
+        OpenModelLoad load = new OpenModelLoad(ARRIVALS_PER_SECOND, WARMUP, MEASUREMENT, MAX_IN_FLIGHT)
+                .flow(AUTOMATIC_LINKING, mix[0], this::automaticLinkingLogin)
+                .flow(MANUAL_LINKING, mix[1], this::manualLinkingLogin)
+                .flow(REGISTRATION, mix[2], this::registrationLogin);
+
+        Allure.step("Step 1: Provision realm, client and the three UAE Pass identity providers", () -> {
+            provisionBrokerRealm("uaepass", "uaepassManualPath", "uaepassNewUser");
+        });
+
+        Allure.step("Step 2: Create " + LINKED_USER_POOL + " linked users and "
+                + load.expectedArrivals(MANUAL_LINKING) + " users to link manually", () -> {
+            createLinkedUsers(mix[0] > 0 ? LINKED_USER_POOL : 0);
+            createUsers(load.expectedArrivals(MANUAL_LINKING), i -> createUser(manualIdentity(i)));
+            System.out.println("✓ Users created");
+        });
+
+        PrometheusMetrics beforeLoad = scrapeKeycloakMetrics();
+        long loadStartedAtMillis = System.currentTimeMillis();
+        Map<String, StatementDigest> statementsBeforeLoad = statementProfiler != null ? statementProfiler.snapshot() : null;
+        OpenModelLoad.Report report = Allure.step("Step 3: Run the load", load::run);
+        Allure.addAttachment("Keycloak metrics during the load", "text/plain",
+                MetricsDiff.between(beforeLoad, scrapeKeycloakMetrics()).describe());
+        if (statementsBeforeLoad != null) {
+            Allure.addAttachment("Database statements during the load", "text/plain",
+                    statementProfiler.report(statementsBeforeLoad, loadStartedAtMillis));
+        }
+        attachReport("Brokered login load (" + ARRIVALS_PER_SECOND + "/s, " + UAE_PASS_MOCK_MODE + " mock)",
+                report.summary());
+
+        assertTrue(report.errorRate() <= MAX_ERROR_RATE,
+                "Error rate " + report.errorRate() + " is above LOAD_MAX_ERROR_RATE " + MAX_ERROR_RATE);
+    }
+
+    // ==================== Flows ====================
+
+    private boolean automaticLinkingLogin(int arrival) {
+        return httpLogin(new BrokerLoginDriver("uaepass", TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient),
+                linkedIdentity(arrival % LINKED_USER_POOL));
+    }
+
+    private boolean manualLinkingLogin(int arrival) {
+        SyntheticIdentity identity = manualIdentity(arrival);
+        return httpLogin(new BrokerLoginDriver("uaepassManualPath", TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient)
+                .answerExistingAccount(true)
+                .withCredentials(identity.loginHint(), LOAD_USER_PASSWORD), identity);
+    }
+
+    private boolean registrationLogin(int arrival) {
+        return httpLogin(new BrokerLoginDriver("uaepassNewUser", TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient)
+                .withFormValue("termsAccepted", "on"), SyntheticIdentity.of("load-new-" + arrival));
+    }
+
+    // ==================== Helpers ====================
+
+    private static SyntheticIdentity manualIdentity(int index) {
+        return SyntheticIdentity.of("load-manual-" + index);
+    }
+
+    /**
+     * LOAD_FLOW_MIX weights as automatic,manual,registration (default 8,1,1); 0 leaves a flow out
+     */
+    private static int[] flowMix() {
+        String[] weights = EnvironmentConfig.get("LOAD_FLOW_MIX", "8,1,1").split(",");
+        if (weights.length != 3) {
+            throw new IllegalArgumentException("LOAD_FLOW_MIX needs three weights: automatic,manual,registration");
+        }
+        int[] mix = new int[3];
+        for (int i = 0; i < 3; i++) {
+            mix[i] = Integer.parseInt(weights[i].trim());
+        }
+        return mix;
+    }
+}
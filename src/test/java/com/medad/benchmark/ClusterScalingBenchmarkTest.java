@@ -0,0 +1,193 @@
+package com.medad.benchmark;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.load.OpenModelLoad;
+import com.medad.metrics.LatencyRecorder;
+import com.medad.metrics.MetricsDiff;
+import com.medad.metrics.PrometheusMetrics;
+import com.medad.protocol.BrokerLoginDriver;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UAE Pass brokered login throughput on a clustered Medad Identity.
+ * Run once per node count and routing mode; every run appends its rows to target/cluster-scaling.csv and the
+ * report compares the sustained throughput of all runs in that file, e.g.:
+ *   mvn test -Pbenchmark -Dtest=ClusterScalingBenchmarkTest -DUAEPASS_MOCK_MODE=in-jvm -DKC_CLUSTER_NODES=1
+ *   mvn test -Pbenchmark -Dtest=ClusterScalingBenchmarkTest -DUAEPASS_MOCK_MODE=in-jvm -DKC_CLUSTER_NODES=3 -DKC_CLUSTER_ROUTING=sticky
+ *   mvn test -Pbenchmark -Dtest=ClusterScalingBenchmarkTest -DUAEPASS_MOCK_MODE=in-jvm -DKC_CLUSTER_NODES=3 -DKC_CLUSTER_ROUTING=round-robin
+ * Each run offers browserless logins at the rates in CLUSTER_LOAD_RATES, one step after the other; the highest
+ * throughput of a step within CLUSTER_MAX_ERROR_RATE is the run's sustained throughput. The sticky vs
+ * round-robin difference at the same node count is the cost of reading authentication sessions from other
+ * nodes through Infinispan; the attached metrics diff shows the cache traffic.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class ClusterScalingBenchmarkTest extends BrokeredLoginBenchmark {
+
+    private static final double[] LOAD_RATES = Arrays.stream(
+            EnvironmentConfig.get("CLUSTER_LOAD_RATES", "10,20,40,80").split(","))
+            .mapToDouble(rate -> Double.parseDouble(rate.trim()))
+            .sorted()
+            .toArray();
+    private static final Duration STEP_WARMUP =
+            Duration.ofSeconds(EnvironmentConfig.getInt("CLUSTER_LOAD_WARMUP_SECONDS", 10));
+    private static final Duration STEP_DURATION =
+            Duration.ofSeconds(EnvironmentConfig.getInt("CLUSTER_LOAD_STEP_SECONDS", 30));
+    private static final int MAX_IN_FLIGHT = EnvironmentConfig.getInt("CLUSTER_MAX_IN_FLIGHT", 2000);
+    private static final double MAX_ERROR_RATE =
+            Double.parseDouble(EnvironmentConfig.get("CLUSTER_MAX_ERROR_RATE", "0.01"));
+    private static final int LINKED_USERS = EnvironmentConfig.getInt("CLUSTER_LINKED_USERS", 100);
+
+    private static final Path RUN_REPORT = Path.of("target", "cluster-scaling.csv");
+    private static final String CSV_HEADER =
+            "nodes,routing,offered_per_s,throughput_per_s,p50_ms,p95_ms,p99_ms,error_rate";
+    private static final String LOGIN = "Brokered login";
+
+    /**
+     * One load step: offered arrivals per second and what the cluster completed
+     */
+    private record Step(double offeredPerSecond, double throughputPerSecond, LatencyRecorder latency, double errorRate) {}
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Cluster benchmark: UAE Pass brokered login throughput through the load balancer")
+    @Description("Offers concurrent browserless UAE Pass logins at increasing rates for the configured node count and routing mode, and reports sustained throughput against the node counts of earlier runs.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Keycloak cluster scaling")
+    public void benchmarkClusteredBrokeredLogin() {
+        Allure.step("Step 1: Provision realm, client, UAE Pass IdP and " + LINKED_USERS + " linked users", () -> {
+            provisionBrokerRealm(UAE_PASS_ALIAS);
+            createLinkedUsers(LINKED_USERS);
+        });
+
+        PrometheusMetrics beforeLoad = scrapeKeycloakMetrics();
+        List<Step> steps = new ArrayList<>();
+        for (double rate : LOAD_RATES) {
+            steps.add(Allure.step(String.format(Locale.ROOT, "Step 2: Offer %.1f logins/s through %s for %d s",
+                    rate, getKeycloakBaseUrl(), STEP_DURATION.toSeconds()), () -> runStep(rate)));
+        }
+        Allure.addAttachment("Keycloak metrics during the load", "text/plain",
+                MetricsDiff.between(beforeLoad, scrapeKeycloakMetrics()).describe());
+
+        List<String> runs = appendToRunReport(steps);
+        attachReport("Cluster benchmark (" + CLUSTER_NODES + " node(s), " + CLUSTER_ROUTING + ")",
+                report(steps, runs));
+        Allure.addAttachment("Cluster scaling runs", "text/csv", String.join("\n", runs), ".csv");
+
+        assertTrue(steps.getFirst().errorRate() <= MAX_ERROR_RATE, String.format(Locale.ROOT,
+                "Error rate %.4f at the lowest offered load is above CLUSTER_MAX_ERROR_RATE %s",
+                steps.getFirst().errorRate(), MAX_ERROR_RATE));
+    }
+
+    // ==================== Helpers ====================
+
+    private Step runStep(double rate) {
+        OpenModelLoad load = new OpenModelLoad(rate, STEP_WARMUP, STEP_DURATION, MAX_IN_FLIGHT)
+                .flow(LOGIN, 1, arrival -> httpLogin(
+                        new BrokerLoginDriver(UAE_PASS_ALIAS, TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient),
+                        linkedIdentity(arrival % LINKED_USERS)));
+        OpenModelLoad.Report report = load.run();
+        LatencyRecorder latency = report.latency(LOGIN);
+        // Completed logins over the measurement window; failed and dropped arrivals do not count
+        Step step = new Step(rate, latency.count() / (double) STEP_DURATION.toSeconds(), latency, report.errorRate());
+        System.out.println("✓ " + report.summary());
+        return step;
+    }
+
+    /**
+     * Highest throughput among the steps that stayed within CLUSTER_MAX_ERROR_RATE
+     */
+    private static double sustainedThroughput(List<Step> steps) {
+        return steps.stream()
+                .filter(step -> step.errorRate() <= MAX_ERROR_RATE)
+                .mapToDouble(Step::throughputPerSecond)
+                .max()
+                .orElse(0);
+    }
+
+    /**
+     * Append this run's steps to target/cluster-scaling.csv and return all rows in the file, header included
+     */
+    private static List<String> appendToRunReport(List<Step> steps) {
+        List<String> rows = new ArrayList<>();
+        for (Step step : steps) {
+            rows.add(String.format(Locale.ROOT, "%d,%s,%.1f,%.2f,%d,%d,%d,%.4f", CLUSTER_NODES,
+                    CLUSTER_ROUTING.name().toLowerCase(Locale.ROOT), step.offeredPerSecond(),
+                    step.throughputPerSecond(), step.latency().percentile(50).toMillis(),
+                    step.latency().percentile(95).toMillis(), step.latency().percentile(99).toMillis(),
+                    step.errorRate()));
+        }
+        try {
+            Files.createDirectories(RUN_REPORT.getParent());
+            if (!Files.exists(RUN_REPORT)) {
+                Files.write(RUN_REPORT, List.of(CSV_HEADER));
+            }
+            Files.write(RUN_REPORT, rows, StandardOpenOption.APPEND);
+            return Files.readAllLines(RUN_REPORT);
+        } catch (IOException e) {
+            System.out.println("⚠ Could not write " + RUN_REPORT + ": " + e.getMessage());
+            rows.addFirst(CSV_HEADER);
+            return rows;
+        }
+    }
+
+    private static String report(List<Step> steps, List<String> runs) {
+        StringBuilder report = new StringBuilder(String.join("\n",
+                "Keycloak nodes       : " + CLUSTER_NODES,
+                "Routing              : " + CLUSTER_ROUTING,
+                "Cluster startup      : " + medadIdentityStartupTime.toMillis() + " ms",
+                String.format(Locale.ROOT, "Sustained throughput : %.2f logins/s", sustainedThroughput(steps)),
+                ""));
+        report.append(String.format(Locale.ROOT, "%n%12s %14s %9s %9s %9s %8s%n",
+                "offered/s", "completed/s", "p50 ms", "p95 ms", "p99 ms", "errors"));
+        for (Step step : steps) {
+            report.append(String.format(Locale.ROOT, "%12.1f %14.2f %9d %9d %9d %7.2f%%%n",
+                    step.offeredPerSecond(), step.throughputPerSecond(), step.latency().percentile(50).toMillis(),
+                    step.latency().percentile(95).toMillis(), step.latency().percentile(99).toMillis(),
+                    step.errorRate() * 100));
+        }
+
+        // routing -> nodes -> best throughput within the error budget, over every run in the file
+        Map<String, TreeMap<Integer, Double>> sustained = new TreeMap<>();
+        for (String row : runs.subList(1, runs.size())) {
+            String[] columns = row.split(",");
+            if (columns.length < 8 || Double.parseDouble(columns[7]) > MAX_ERROR_RATE) {
+                continue;
+            }
+            sustained.computeIfAbsent(columns[1], routing -> new TreeMap<>())
+                    .merge(Integer.parseInt(columns[0]), Double.parseDouble(columns[3]), Math::max);
+        }
+        report.append("\nSustained throughput by node count (all runs in ").append(RUN_REPORT).append(")\n");
+        sustained.forEach((routing, byNodes) -> {
+            Map.Entry<Integer, Double> smallest = byNodes.firstEntry();
+            double perNodeBaseline = smallest.getValue() / smallest.getKey();
+            byNodes.forEach((nodes, throughput) -> report.append(String.format(Locale.ROOT,
+                    "  %-12s %2d node(s) %10.2f logins/s  %6.2f per node  scaling efficiency %5.1f%%%n",
+                    routing, nodes, throughput, throughput / nodes,
+                    perNodeBaseline == 0 ? 0 : throughput / nodes / perNodeBaseline * 100)));
+        });
+        return report.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.medad.benchmark;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.metrics.LatencyRecorder;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Same provisioning + brokered login scenario for every database backend.
+ * Run once per backend and compare the attached reports:
+ *   mvn test -Pbenchmark -Dtest=DatabaseBackendBenchmarkTest -DDB_VENDOR=mysql
+ *   mvn test -Pbenchmark -Dtest=DatabaseBackendBenchmarkTest -DDB_VENDOR=postgres
+ *   mvn test -Pbenchmark -Dtest=DatabaseBackendBenchmarkTest -DDB_VENDOR=dev-file
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class DatabaseBackendBenchmarkTest extends BrokeredLoginBenchmark {
+
+    private static final int BENCHMARK_USERS = EnvironmentConfig.getInt("BENCHMARK_USERS", 50);
+    private static final int BENCHMARK_LOGINS = EnvironmentConfig.getInt("BENCHMARK_LOGINS", 5);
+
+    @Test
+    @DisplayName("Database backend benchmark: provisioning and UAE Pass brokered login")
+    @Description("Measures Keycloak startup, admin provisioning and UAE Pass brokered login latency on the database selected with DB_VENDOR.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Database backend comparison")
+    public void benchmarkDatabaseBackend() {
+        LatencyRecorder realmCreation = new LatencyRecorder("realm+client+idp create");
+        LatencyRecorder userCreation = new LatencyRecorder("user create (admin API)");
+        LatencyRecorder userLookup = new LatencyRecorder("user search (admin API)");
+        LatencyRecorder brokeredLogin = new LatencyRecorder("UAE Pass brokered login");
+
+        Allure.step("Step 1: Provision realm, client, UAE Pass identity provider and linked user",
+                () -> provisionLinkedUserRealm(realmCreation));
+
+        Allure.step("Step 2: Create " + BENCHMARK_USERS + " users and look them up", () -> {
+            for (int i = 0; i < BENCHMARK_USERS; i++) {
+                String username = "bench-user-" + i;
+                userCreation.time(() -> assertNotNull(getUserManager().createUser(testRealmName, username,
+                        username + "@example.com", "Bench", "User " + username, "Password123!")));
+                userLookup.time(() -> assertTrue(getUserManager().userExists(testRealmName, username)));
+            }
+        });
+
+        Allure.step("Step 3: Log in " + BENCHMARK_LOGINS + " times with a linked UAE Pass user",
+                () -> repeatBrowserLogin(BENCHMARK_LOGINS, brokeredLogin));
+
+        attachReport("Database benchmark (" + databaseBackend.vendor() + ")", String.join("\n",
+                "Database backend     : " + databaseBackend.vendor(),
+                "Database startup     : " + databaseStartupTime.toMillis() + " ms",
+                "Keycloak startup     : " + medadIdentityStartupTime.toMillis() + " ms",
+                realmCreation.summary(),
+                userCreation.summary(),
+                userLookup.summary(),
+                brokeredLogin.summary()));
+
+        // Admin calls throw on failure; browser logins are counted as errors instead
+        assertEquals(0, brokeredLogin.errors(), "Brokered logins should not fail");
+    }
+}
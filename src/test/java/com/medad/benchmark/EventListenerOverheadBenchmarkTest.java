@@ -0,0 +1,196 @@
+package com.medad.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.medad.config.EnvironmentConfig;
+import com.medad.metrics.LatencyRecorder;
+import com.medad.mock.SyntheticIdentity;
+import com.medad.protocol.BrokerLoginDriver;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost of the realm's event settings on logins and admin provisioning.
+ *   mvn test -Pbenchmark -Dtest=EventListenerOverheadBenchmarkTest -DUAEPASS_MOCK_MODE=in-jvm -DEVENTS_ROUNDS=5
+ * Starting from the realm's configuration in realm-configs.json (eventsListeners, adminEventsEnabled,
+ * adminEventsDetailsEnabled), each variant turns one setting off, plus a variant with everything off.
+ * Variants are switched through the admin API and interleaved round by round on the same realm, so drift
+ * (JIT, caches, database growth) spreads evenly over them.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class EventListenerOverheadBenchmarkTest extends BrokeredLoginBenchmark {
+
+    private static final int ROUNDS = EnvironmentConfig.getInt("EVENTS_ROUNDS", 3);
+    private static final int WARMUP_ROUNDS = EnvironmentConfig.getInt("EVENTS_WARMUP_ROUNDS", 1);
+    private static final int LOGINS = EnvironmentConfig.getInt("EVENTS_LOGINS", 30);
+    private static final int PROVISIONING_CALLS = EnvironmentConfig.getInt("EVENTS_PROVISIONING_CALLS", 30);
+    private static final int LINKED_USERS = 50;
+
+    /**
+     * One combination of the realm's event settings
+     */
+    private record EventSettings(String name, List<String> listeners, boolean adminEvents, boolean adminEventDetails) {}
+
+    private record Results(LatencyRecorder login, LatencyRecorder provisioning) {}
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Event listener benchmark: login and provisioning latency with each event setting on and off")
+    @Description("Runs the same UAE Pass login and admin provisioning workload with each event listener and admin event setting switched off in turn and reports what each adds to latency and throughput.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Event listener overhead")
+    public void benchmarkEventListenerOverhead() {
+        JsonNode realmNode = getRealmConfigManager().getRealmNodeByName("realm-configs.json", "medad");
+        List<EventSettings> variants = variants(realmNode);
+
+        Allure.step("Step 1: Provision realm, client, UAE Pass IdP and " + LINKED_USERS + " linked users", () -> {
+            provisionBrokerRealm(realmNode, UAE_PASS_ALIAS);
+            createLinkedUsers(LINKED_USERS);
+        });
+
+        Map<String, Results> results = new LinkedHashMap<>();
+        for (EventSettings variant : variants) {
+            results.put(variant.name(), new Results(new LatencyRecorder("Login, " + variant.name()),
+                    new LatencyRecorder("Provisioning, " + variant.name())));
+        }
+        Allure.step("Step 2: Run " + WARMUP_ROUNDS + " warmup and " + ROUNDS + " measured rounds over "
+                + variants.size() + " event settings", () -> {
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                boolean measured = round >= WARMUP_ROUNDS;
+                for (EventSettings variant : variants) {
+                    getRealmConfigManager().updateEventsConfig(testRealmName, variant.listeners(),
+                            variant.adminEvents(), variant.adminEventDetails());
+                    Results variantResults = results.get(variant.name());
+                    runLogins(round, measured ? variantResults.login() : new LatencyRecorder("warmup"));
+                    runProvisioning(round, variant, measured ? variantResults.provisioning() : new LatencyRecorder("warmup"));
+                }
+            }
+        });
+
+        attachReport("Event listener overhead (" + ROUNDS + " rounds)", report(variants, results));
+
+        results.values().forEach(result -> {
+            assertEquals(0, result.login().errors(), result.login().getName() + " should not fail");
+            assertEquals(0, result.provisioning().errors(), result.provisioning().getName() + " should not fail");
+        });
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * The realm's own settings, each setting switched off on its own, and everything off
+     */
+    private static List<EventSettings> variants(JsonNode realmNode) {
+        List<String> listeners = new ArrayList<>();
+        realmNode.path("eventsListeners").forEach(listener -> listeners.add(listener.asText()));
+        boolean adminEvents = realmNode.path("adminEventsEnabled").asBoolean(false);
+        boolean adminEventDetails = realmNode.path("adminEventsDetailsEnabled").asBoolean(false);
+
+        List<EventSettings> variants = new ArrayList<>();
+        variants.add(new EventSettings("as configured", listeners, adminEvents, adminEventDetails));
+        for (String listener : listeners) {
+            List<String> without = new ArrayList<>(listeners);
+            without.remove(listener);
+            variants.add(new EventSettings("without " + listener, without, adminEvents, adminEventDetails));
+        }
+        if (adminEventDetails) {
+            variants.add(new EventSettings("without admin event details", listeners, adminEvents, false));
+        }
+        if (adminEvents) {
+            variants.add(new EventSettings("without admin events", listeners, false, false));
+        }
+        variants.add(new EventSettings("all off", List.of(), false, false));
+        return variants;
+    }
+
+    private void runLogins(int round, LatencyRecorder timing) {
+        for (int i = 0; i < LOGINS; i++) {
+            SyntheticIdentity identity = linkedIdentity((round * LOGINS + i) % LINKED_USERS);
+            long start = System.nanoTime();
+            boolean success = httpLogin(
+                    new BrokerLoginDriver(UAE_PASS_ALIAS, TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient), identity);
+            if (success) {
+                timing.record(start, System.nanoTime());
+            } else {
+                timing.recordError(start, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Create (user + password, two admin events) and delete a user; only the creation is timed
+     */
+    private void runProvisioning(int round, EventSettings variant, LatencyRecorder timing) {
+        String prefix = "events-" + variant.name().replaceAll("[^A-Za-z0-9]+", "-") + "-" + round + "-";
+        for (int i = 0; i < PROVISIONING_CALLS; i++) {
+            SyntheticIdentity identity = SyntheticIdentity.of(prefix + i);
+            long start = System.nanoTime();
+            try {
+                createUser(identity);
+                timing.record(start, System.nanoTime());
+            } catch (AssertionError | RuntimeException e) {
+                timing.recordError(start, System.nanoTime());
+            }
+            getUserManager().deleteUser(testRealmName, identity.loginHint());
+        }
+    }
+
+    /**
+     * Mean, p95 and sequential throughput per variant, with the difference to "as configured" and "all off"
+     */
+    private static String report(List<EventSettings> variants, Map<String, Results> results) {
+        Results configured = results.get(variants.getFirst().name());
+        Results allOff = results.get(variants.getLast().name());
+        StringBuilder report = new StringBuilder();
+        results.values().forEach(result -> report.append(result.login().summary()).append('\n')
+                .append(result.provisioning().summary()).append('\n'));
+
+        report.append(String.format(Locale.ROOT, "%n%-38s %12s %10s %12s %12s %10s %12s%n", "Event settings",
+                "login ms", "login/s", "vs all off", "create ms", "create/s", "vs all off"));
+        for (EventSettings variant : variants) {
+            Results result = results.get(variant.name());
+            report.append(String.format(Locale.ROOT, "%-38s %12.1f %10.2f %+12.1f %12.1f %10.2f %+12.1f%n",
+                    variant.name(),
+                    meanMillis(result.login()), perSecond(result.login()),
+                    meanMillis(result.login()) - meanMillis(allOff.login()),
+                    meanMillis(result.provisioning()), perSecond(result.provisioning()),
+                    meanMillis(result.provisioning()) - meanMillis(allOff.provisioning())));
+        }
+
+        report.append("\nChange from switching one setting off (mean ms vs as configured, negative = cheaper)\n");
+        for (EventSettings variant : variants.subList(1, variants.size())) {
+            Results result = results.get(variant.name());
+            report.append(String.format(Locale.ROOT, "  %-36s login %+8.1f   create user %+8.1f%n", variant.name(),
+                    meanMillis(result.login()) - meanMillis(configured.login()),
+                    meanMillis(result.provisioning()) - meanMillis(configured.provisioning())));
+        }
+        return report.toString();
+    }
+
+    private static double meanMillis(LatencyRecorder recorder) {
+        return recorder.mean().toNanos() / 1_000_000.0;
+    }
+
+    /**
+     * Throughput of one client doing the operations back to back
+     */
+    private static double perSecond(LatencyRecorder recorder) {
+        double mean = meanMillis(recorder);
+        return mean == 0 ? 0 : 1000 / mean;
+    }
+}
@@ -0,0 +1,131 @@
+package com.medad.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.medad.config.EnvironmentConfig;
+import com.medad.load.OpenModelLoad;
+import com.medad.metrics.ContainerStats;
+import com.medad.metrics.PrometheusMetrics;
+import com.medad.metrics.ResourceTrendMonitor;
+import com.medad.protocol.BrokerLoginDriver;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Soak run: a steady UAE Pass login rate against Medad Identity for SOAK_DURATION_MINUTES, watching for leaks
+ * and session buildup that short runs never show.
+ *   mvn test -Psoak -Dtest=KeycloakSoakTest -DUAEPASS_MOCK_MODE=in-jvm -DSOAK_DURATION_MINUTES=240
+ * Every SOAK_SAMPLE_SECONDS it records CPU and memory of each Keycloak container (docker stats), the JVM heap,
+ * live data after GC, GC pause time and threads (management /metrics) and the realm's active sessions.
+ * Series still growing after SOAK_TREND_SKIP_MINUTES are flagged; sessions expire after SOAK_SESSION_IDLE_SECONDS,
+ * so their count should level off once that has passed.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("soak")
+public class KeycloakSoakTest extends BrokeredLoginBenchmark {
+
+    private static final Duration DURATION = Duration.ofMinutes(EnvironmentConfig.getInt("SOAK_DURATION_MINUTES", 60));
+    private static final double LOGINS_PER_SECOND =
+            Double.parseDouble(EnvironmentConfig.get("SOAK_LOGINS_PER_SECOND", "5"));
+    private static final Duration SAMPLE_INTERVAL =
+            Duration.ofSeconds(EnvironmentConfig.getInt("SOAK_SAMPLE_SECONDS", 30));
+    private static final Duration TREND_SKIP = Duration.ofMinutes(EnvironmentConfig.getInt("SOAK_TREND_SKIP_MINUTES", 15));
+    private static final double TREND_THRESHOLD = Double.parseDouble(EnvironmentConfig.get("SOAK_TREND_THRESHOLD", "0.10"));
+    private static final double TREND_MIN_R_SQUARED = Double.parseDouble(EnvironmentConfig.get("SOAK_TREND_MIN_R2", "0.5"));
+    private static final int SESSION_IDLE_SECONDS = EnvironmentConfig.getInt("SOAK_SESSION_IDLE_SECONDS", 600);
+    private static final int LINKED_USERS = EnvironmentConfig.getInt("LOAD_LINKED_USERS", 200);
+    private static final double MEGABYTE = 1024 * 1024;
+
+    private static final String GC_PAUSE = "keycloak GC pause (s/s)";
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Soak test: steady UAE Pass logins with resource trend monitoring")
+    @Description("Keeps a steady brokered login rate for a long time, samples container and JVM resources and flags series that keep growing.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Soak")
+    public void soakBrokeredLogins() {
+        Allure.step("Step 1: Provision realm (session idle " + SESSION_IDLE_SECONDS + " s), client, UAE Pass IdP and "
+                + LINKED_USERS + " linked users", () -> {
+            JsonNode realmNode = getRealmConfigManager().getRealmNodeByName("realm-configs.json", "medad");
+            ((ObjectNode) realmNode).put("ssoSessionIdleTimeout", SESSION_IDLE_SECONDS);
+            provisionBrokerRealm(realmNode, UAE_PASS_ALIAS);
+            createLinkedUsers(LINKED_USERS);
+        });
+
+        OpenModelLoad load = new OpenModelLoad(LOGINS_PER_SECOND, Duration.ZERO, DURATION,
+                EnvironmentConfig.getInt("LOAD_MAX_IN_FLIGHT", 5000))
+                .flow("Soak login", 1, arrival -> httpLogin(
+                        new BrokerLoginDriver(UAE_PASS_ALIAS, TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient),
+                        linkedIdentity(arrival % LINKED_USERS)));
+
+        List<ResourceTrendMonitor.Trend> trends;
+        try (ResourceTrendMonitor monitor = resourceMonitor().start(SAMPLE_INTERVAL)) {
+            OpenModelLoad.Report report = Allure.step("Step 2: Log in " + LOGINS_PER_SECOND + " times per second for "
+                    + DURATION.toMinutes() + " minutes", load::run);
+            trends = monitor.trends(TREND_SKIP, TREND_THRESHOLD, TREND_MIN_R_SQUARED);
+            Allure.addAttachment("Soak samples", "text/csv", monitor.csv(), ".csv");
+            StringBuilder trendReport = new StringBuilder(report.summary()).append("\n\nTrends after ")
+                    .append(TREND_SKIP.toMinutes()).append(" min (threshold ")
+                    .append(Math.round(TREND_THRESHOLD * 100)).append("%, r2 >= ").append(TREND_MIN_R_SQUARED).append("):\n");
+            trends.forEach(trend -> trendReport.append(trend.row()).append('\n'));
+            attachReport("Soak (" + DURATION.toMinutes() + " min, " + LOGINS_PER_SECOND + "/s)", trendReport.toString());
+        }
+
+        List<String> rising = trends.stream().filter(ResourceTrendMonitor.Trend::rising)
+                .map(ResourceTrendMonitor.Trend::name).toList();
+        if (!EnvironmentConfig.getBoolean("SOAK_FAIL_ON_TREND", true)) {
+            rising.forEach(name -> System.out.println("⚠ Rising: " + name));
+            return;
+        }
+        assertTrue(rising.isEmpty(), "Resource series still growing at the end of the soak: " + rising);
+    }
+
+    // ==================== Helpers ====================
+
+    private ResourceTrendMonitor resourceMonitor() {
+        ResourceTrendMonitor monitor = new ResourceTrendMonitor().counter(GC_PAUSE);
+        for (int node = 1; node <= medadIdentityNodes.size(); node++) {
+            GenericContainer<?> container = medadIdentityNodes.get(node - 1);
+            String label = "keycloak-" + node;
+            monitor.source(() -> {
+                ContainerStats stats = ContainerStats.read(container.getContainerId());
+                Map<String, Double> readings = new LinkedHashMap<>();
+                readings.put(label + " container CPU %", stats.cpuPercent());
+                readings.put(label + " container memory (MB)", stats.memoryBytes() / MEGABYTE);
+                return readings;
+            });
+        }
+        monitor.source(() -> {
+            PrometheusMetrics metrics = PrometheusMetrics.scrape(MEDAD_IDENTITY_MANAGEMENT_URL + "/metrics");
+            double heapUsed = metrics.samples("jvm_memory_used_bytes").stream()
+                    .filter(sample -> "heap".equals(sample.labels().get("area")))
+                    .mapToDouble(PrometheusMetrics.Sample::value)
+                    .sum();
+            Map<String, Double> readings = new LinkedHashMap<>();
+            readings.put("keycloak heap used (MB)", heapUsed / MEGABYTE);
+            readings.put("keycloak live data after GC (MB)", metrics.sum("jvm_gc_live_data_size_bytes") / MEGABYTE);
+            readings.put(GC_PAUSE, metrics.sum("jvm_gc_pause_seconds_sum"));
+            readings.put("keycloak live threads", metrics.sum("jvm_threads_live_threads"));
+            return readings;
+        });
+        monitor.source(() -> Map.of("realm active sessions",
+                (double) getRealmConfigManager().countActiveSessions(testRealmName)));
+        return monitor;
+    }
+}
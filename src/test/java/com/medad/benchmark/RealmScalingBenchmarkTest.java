@@ -0,0 +1,208 @@
+package com.medad.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.medad.config.EnvironmentConfig;
+import com.medad.database.StatementDigest;
+import com.medad.metrics.LatencyRecorder;
+import com.medad.mock.SyntheticIdentity;
+import com.medad.protocol.BrokerLoginDriver;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * First-broker-login auto-linking latency as the realm grows, per UAE Pass automatic linking level.
+ *   mvn test -Pbenchmark -Dtest=RealmScalingBenchmarkTest -DUAEPASS_MOCK_MODE=in-jvm -DSCALE_REALM_SIZES=10000,100000,1000000
+ * The default sizes (1000,5000) only check the benchmark end to end; pass the production-like sizes for a curve.
+ * The realm is seeded by partial import with users carrying unique idn, mobile and email, and grown to each size
+ * in turn. Every measured login links a fresh UAE Pass identity to the one user holding its attributes; that user
+ * is deleted afterwards, so each lookup searches the whole seeded population.
+ * With MYSQL_STATEMENT_PROFILING each level and size gets its own statement report (e.g. USER_ATTRIBUTE scans).
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class RealmScalingBenchmarkTest extends BrokeredLoginBenchmark {
+
+    private static final int[] REALM_SIZES = Arrays.stream(
+            EnvironmentConfig.get("SCALE_REALM_SIZES", "1000,5000").split(","))
+            .mapToInt(size -> Integer.parseInt(size.trim()))
+            .sorted()
+            .toArray();
+    private static final int LOGINS = EnvironmentConfig.getInt("SCALE_LOGINS", 20);
+    private static final int WARMUP_LOGINS = EnvironmentConfig.getInt("SCALE_WARMUP_LOGINS", 3);
+    private static final int IMPORT_BATCH = EnvironmentConfig.getInt("SCALE_IMPORT_BATCH", 1000);
+
+    // Identity provider alias -> what it matches existing users on (see idp-configs.json)
+    private static final Map<String, String> LINKING_LEVELS = new LinkedHashMap<>();
+
+    static {
+        LINKING_LEVELS.put("autoLinkingLevel2", "Level 2 (idn)");
+        LINKING_LEVELS.put("autoLinkingLevel3", "Level 3 (email + mobile)");
+        LINKING_LEVELS.put("autoLinkingLevel4", "Level 4 (email)");
+    }
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Realm scaling benchmark: UAE Pass auto-linking latency by realm size and linking level")
+    @Description("Seeds the realm with growing numbers of users with idn, mobile and email and measures first broker login auto-linking latency for linking levels 2, 3 and 4 at each size.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Realm size scaling")
+    public void benchmarkAutoLinkingByRealmSize() {
+        Allure.step("Step 1: Provision realm with the idn/mobile user profile, client and linking level 2-4 IdPs", () -> {
+            provisionBrokerRealm(LINKING_LEVELS.keySet().toArray(String[]::new));
+            getRealmConfigManager().addAttributesFromResource(testRealmName, "user-profile-config.json");
+        });
+
+        List<LatencyRecorder> results = new ArrayList<>();
+        int seeded = 0;
+        for (int size : REALM_SIZES) {
+            int from = seeded;
+            Allure.step("Step 2: Seed the realm from " + from + " to " + size + " users", () -> seedUsers(from, size));
+            seeded = Math.max(seeded, size);
+            for (Map.Entry<String, String> level : LINKING_LEVELS.entrySet()) {
+                results.add(Allure.step(level.getValue() + " auto-linking at " + size + " users",
+                        () -> measureLinking(level.getKey(), level.getValue(), size)));
+            }
+        }
+
+        attachReport("Realm scaling (" + Arrays.toString(REALM_SIZES) + " users)", report(results));
+        Allure.addAttachment("Realm scaling curve", "text/csv", csv(results), ".csv");
+
+        assertEquals(0, results.stream().mapToLong(LatencyRecorder::errors).sum(),
+                "Every probe identity should be linked to its existing user");
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * Import seed users from..to-1 in batches, a few batches at a time
+     */
+    private void seedUsers(int from, int to) throws Exception {
+        int batches = (Math.max(0, to - from) + IMPORT_BATCH - 1) / IMPORT_BATCH;
+        long started = System.nanoTime();
+        createUsers(batches, batch -> {
+            int first = from + batch * IMPORT_BATCH;
+            getUserManager().importUsers(testRealmName, IntStream.range(first, Math.min(to, first + IMPORT_BATCH))
+                    .mapToObj(RealmScalingBenchmarkTest::seedUser)
+                    .toList());
+        });
+        System.out.println("✓ Seeded " + (to - from) + " users in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Seed user n; idn (7840...) and mobile (+97155...) never collide with the probe identities, whose hints start
+     * with a letter and so give 7849... and +97159...
+     */
+    private static UserRepresentation seedUser(int n) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername("seed-" + n);
+        user.setEmail("seed-" + n + "@scale.test");
+        user.setFirstName("Seed");
+        user.setLastName(String.valueOf(n));
+        user.setEnabled(true);
+        user.setEmailVerified(true);
+        user.setAttributes(Map.of(
+                "idn", List.of(String.format(Locale.ROOT, "784%012d", n + 1)),
+                "mobile", List.of(String.format(Locale.ROOT, "+97155%07d", n))));
+        return user;
+    }
+
+    private LatencyRecorder measureLinking(String alias, String label, int size) {
+        LatencyRecorder linking = new LatencyRecorder(label + " @ " + size);
+        Map<String, StatementDigest> statementsBefore = statementProfiler != null ? statementProfiler.snapshot() : null;
+        long measuredFromMillis = System.currentTimeMillis();
+        for (int i = 0; i < WARMUP_LOGINS + LOGINS; i++) {
+            SyntheticIdentity identity = SyntheticIdentity.of(
+                    "probe-" + alias.toLowerCase(Locale.ROOT) + "-" + size + "-" + i);
+            String userId = createProbeUser(identity);
+            long start = System.nanoTime();
+            boolean reachedCallback = httpLogin(
+                    new BrokerLoginDriver(alias, TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient), identity);
+            long end = System.nanoTime();
+            boolean linked = reachedCallback && getUserManager().hasFederatedIdentity(testRealmName, userId, alias);
+            if (i >= WARMUP_LOGINS) {
+                if (linked) {
+                    linking.record(start, end);
+                } else {
+                    linking.recordError(start, end);
+                }
+            }
+            getUserManager().deleteUser(testRealmName, identity.loginHint());
+        }
+        if (statementsBefore != null) {
+            Allure.addAttachment("Database statements: " + label + " @ " + size, "text/plain",
+                    statementProfiler.report(statementsBefore, measuredFromMillis));
+        }
+        System.out.println("✓ " + linking.summary());
+        return linking;
+    }
+
+    /**
+     * Existing user holding exactly the probe identity's UAE Pass email, mobile and idn
+     */
+    private String createProbeUser(SyntheticIdentity identity) {
+        ObjectNode userNode = JsonNodeFactory.instance.objectNode()
+                .put("username", identity.loginHint())
+                .put("email", identity.email())
+                .put("firstName", identity.firstName())
+                .put("lastName", identity.lastName())
+                .put("password", LOAD_USER_PASSWORD)
+                .put("enabled", true)
+                .put("emailVerified", true)
+                .put("mobile", identity.mobile())
+                .put("idn", identity.idn());
+        String userId = getUserManager().createCustomUserFromNode(testRealmName, userNode);
+        assertNotNull(userId, "Probe user should be created: " + identity.loginHint());
+        return userId;
+    }
+
+    private static String report(List<LatencyRecorder> results) {
+        StringBuilder report = new StringBuilder();
+        results.forEach(result -> report.append(result.summary()).append('\n'));
+        report.append("\np95 relative to ").append(REALM_SIZES[0]).append(" users\n");
+        for (String label : LINKING_LEVELS.values()) {
+            List<LatencyRecorder> curve = results.stream()
+                    .filter(result -> result.getName().startsWith(label + " @ "))
+                    .toList();
+            double baseline = Math.max(1, curve.getFirst().percentile(95).toMillis());
+            report.append(String.format(Locale.ROOT, "  %-26s", label));
+            for (int i = 0; i < curve.size(); i++) {
+                report.append(String.format(Locale.ROOT, "  %d: %.2fx", REALM_SIZES[i],
+                        curve.get(i).percentile(95).toMillis() / baseline));
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+
+    private static String csv(List<LatencyRecorder> results) {
+        StringBuilder csv = new StringBuilder("level,realm_users,p50_ms,p95_ms,p99_ms,mean_ms,errors\n");
+        for (LatencyRecorder result : results) {
+            String[] name = result.getName().split(" @ ");
+            csv.append(String.format(Locale.ROOT, "\"%s\",%s,%d,%d,%d,%d,%d%n", name[0], name[1],
+                    result.percentile(50).toMillis(), result.percentile(95).toMillis(),
+                    result.percentile(99).toMillis(), result.mean().toMillis(), result.errors()));
+        }
+        return csv.toString();
+    }
+}
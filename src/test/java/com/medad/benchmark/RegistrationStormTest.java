@@ -0,0 +1,163 @@
+package com.medad.benchmark;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.database.StatementDigest;
+import com.medad.load.OpenModelLoad;
+import com.medad.logging.ContainerLogPipeline;
+import com.medad.mock.SyntheticIdentity;
+import com.medad.protocol.BrokerLoginDriver;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Registration storm: many new UAE Pass users registering through first broker login at the same moment,
+ * as after a campaign.
+ *   mvn test -Pbenchmark -Dtest=RegistrationStormTest -DUAEPASS_MOCK_MODE=in-jvm -DSTORM_USERS=2000 -DSTORM_RAMP_MILLIS=500
+ * STORM_USERS distinct identities arrive within STORM_RAMP_MILLIS. Besides latency and throughput the report
+ * shows InnoDB deadlocks and lock waits (MySQL with MYSQL_STATEMENT_PROFILING) and the Keycloak log lines that
+ * point at contention or retries. Afterwards every identity must own at most one user, every registered user
+ * must be linked, and the realm must hold no other users.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class RegistrationStormTest extends BrokeredLoginBenchmark {
+
+    private static final int USERS = EnvironmentConfig.getInt("STORM_USERS", 1000);
+    private static final Duration RAMP = Duration.ofMillis(EnvironmentConfig.getInt("STORM_RAMP_MILLIS", 1000));
+    private static final int MAX_IN_FLIGHT = EnvironmentConfig.getInt("STORM_MAX_IN_FLIGHT", USERS);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(EnvironmentConfig.get("STORM_MAX_ERROR_RATE", "0.01"));
+
+    private static final String REGISTRATION_IDP = "uaepassNewUser";
+    private static final String REGISTRATION = "Registration";
+
+    // Keycloak log lines that show database contention or retried transactions
+    private static final Map<String, Pattern> CONTENTION_LOG_PATTERNS = new LinkedHashMap<>();
+
+    static {
+        CONTENTION_LOG_PATTERNS.put("deadlock", Pattern.compile("(?i)deadlock"));
+        CONTENTION_LOG_PATTERNS.put("lock wait timeout", Pattern.compile("(?i)lock wait timeout|lock timeout"));
+        CONTENTION_LOG_PATTERNS.put("duplicate key", Pattern.compile("(?i)duplicate entry|duplicate key|ModelDuplicateException"));
+        CONTENTION_LOG_PATTERNS.put("retry", Pattern.compile("(?i)\\bretry(ing)?\\b"));
+    }
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Registration storm: simultaneous first broker login registrations of new UAE Pass users")
+    @Description("Fires many first broker login registrations with distinct UAE Pass identities at once, reports throughput, lock contention and deadlocks, and checks that no duplicate users or links are created.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("Registration storm")
+    public void registrationStorm() {
+        Allure.step("Step 1: Provision realm, client and the registration UAE Pass IdP", () -> {
+            provisionBrokerRealm(REGISTRATION_IDP);
+        });
+        int usersBefore = getUserManager().countUsers(testRealmName);
+
+        OpenModelLoad storm = new OpenModelLoad(USERS * 1_000_000_000.0 / RAMP.toNanos(), Duration.ZERO, RAMP, MAX_IN_FLIGHT)
+                .flow(REGISTRATION, 1, arrival -> httpLogin(
+                        new BrokerLoginDriver(REGISTRATION_IDP, TEST_CLIENT_OIDC_CALLBACK_URL, brokerHttpClient)
+                                .withFormValue("termsAccepted", "on"), stormIdentity(arrival)));
+
+        Map<String, Long> locksBefore = statementProfiler != null ? statementProfiler.lockCounters() : Map.of();
+        Map<String, StatementDigest> statementsBefore = statementProfiler != null ? statementProfiler.snapshot() : null;
+        long stormStartedAtMillis = System.currentTimeMillis();
+        OpenModelLoad.Report report = Allure.step("Step 2: Register " + USERS + " new UAE Pass users within "
+                + RAMP.toMillis() + " ms", storm::run);
+        long stormEndedAtMillis = System.currentTimeMillis();
+        Map<String, Long> locksAfter = statementProfiler != null ? statementProfiler.lockCounters() : Map.of();
+        if (statementsBefore != null) {
+            Allure.addAttachment("Database statements during the storm", "text/plain",
+                    statementProfiler.report(statementsBefore, stormStartedAtMillis));
+        }
+
+        List<String> problems = Allure.step("Step 3: Check every identity for duplicate or unlinked users",
+                () -> findDuplicatesAndOrphans(storm.expectedArrivals(REGISTRATION)));
+        int registered = getUserManager().countUsers(testRealmName) - usersBefore;
+
+        attachReport("Registration storm (" + USERS + " users in " + RAMP.toMillis() + " ms)", String.join("\n",
+                report.summary(),
+                "",
+                "Users created        : " + registered,
+                "Database locks       : " + lockDeltas(locksBefore, locksAfter),
+                "Keycloak log lines   : " + contentionLogLines(stormStartedAtMillis, stormEndedAtMillis),
+                "Duplicates / orphans : " + (problems.isEmpty() ? "none" : problems.size()),
+                String.join("\n", problems)));
+
+        assertTrue(problems.isEmpty(), "Duplicate or unlinked users after the storm: " + problems);
+        // Logins that timed out on the client may still have registered, so only the bounds are exact
+        assertTrue(registered >= report.latency(REGISTRATION).count(),
+                "Every successful registration should have created a user; " + registered + " created");
+        assertTrue(registered <= storm.expectedArrivals(REGISTRATION),
+                "More users than UAE Pass identities: " + registered);
+        assertTrue(report.errorRate() <= MAX_ERROR_RATE,
+                "Error rate " + report.errorRate() + " is above STORM_MAX_ERROR_RATE " + MAX_ERROR_RATE);
+    }
+
+    // ==================== Helpers ====================
+
+    private static SyntheticIdentity stormIdentity(int arrival) {
+        return SyntheticIdentity.of("storm-" + arrival);
+    }
+
+    /**
+     * Identities with more than one user for their email, and users that were created but not linked to UAE Pass
+     */
+    private List<String> findDuplicatesAndOrphans(int identities) {
+        List<String> problems = new ArrayList<>();
+        for (int i = 0; i < identities; i++) {
+            SyntheticIdentity identity = stormIdentity(i);
+            List<String> userIds = getUserManager().getUserIdsByEmail(testRealmName, identity.email());
+            if (userIds.size() > 1) {
+                problems.add("✗ " + userIds.size() + " users for " + identity.email());
+            }
+            for (String userId : userIds) {
+                if (!getUserManager().hasFederatedIdentity(testRealmName, userId, REGISTRATION_IDP)) {
+                    problems.add("✗ User " + userId + " (" + identity.email() + ") is not linked to " + REGISTRATION_IDP);
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static String lockDeltas(Map<String, Long> before, Map<String, Long> after) {
+        if (after.isEmpty()) {
+            return "not available (MySQL with MYSQL_STATEMENT_PROFILING only)";
+        }
+        List<String> deltas = new ArrayList<>();
+        after.forEach((name, value) -> deltas.add(String.format(Locale.ROOT, "%s=%d",
+                name, value - before.getOrDefault(name, 0L))));
+        return String.join(", ", deltas);
+    }
+
+    private static String contentionLogLines(long fromMillis, long toMillis) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        CONTENTION_LOG_PATTERNS.keySet().forEach(name -> counts.put(name, 0));
+        for (ContainerLogPipeline.LogLine line : ContainerLogPipeline.slice(fromMillis, toMillis)) {
+            if (!line.source().startsWith("KEYCLOAK")) {
+                continue;
+            }
+            CONTENTION_LOG_PATTERNS.forEach((name, pattern) -> {
+                if (pattern.matcher(line.text()).find()) {
+                    counts.merge(name, 1, Integer::sum);
+                }
+            });
+        }
+        return counts.toString();
+    }
+}
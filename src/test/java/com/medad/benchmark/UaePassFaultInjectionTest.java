@@ -0,0 +1,165 @@
+package com.medad.benchmark;
+
+import com.medad.faults.UaePassEndpoint;
+import com.medad.metrics.GaugeSampler;
+import com.medad.metrics.LatencyRecorder;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.AriaRole;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.microsoft.playwright.assertions.PlaywrightAssertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Brokered login behaviour when the UAE Pass back-channel is slow or unreliable.
+ * Needs the Toxiproxy container:
+ *   mvn test -Pbenchmark -Dtest=UaePassFaultInjectionTest -DUAEPASS_FAULT_INJECTION=true
+ * Combine with -DKC_IDP_SOCKET_TIMEOUT_MILLIS=... to tune how long Keycloak waits for UAE Pass.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class UaePassFaultInjectionTest extends BrokeredLoginBenchmark {
+
+    private static final int LOGINS_PER_SCENARIO = 3;
+    private static final Duration INJECTED_LATENCY = Duration.ofSeconds(2);
+    private static final Duration INJECTED_JITTER = Duration.ofMillis(200);
+    // identityProviderUnexpectedErrorMessage of the medad theme, shown when the broker callback fails
+    private static final String BROKER_ERROR_MESSAGE = "Something went wrong during the login, please try again later!";
+
+    @BeforeEach
+    void requireFaultProxy() {
+        Assumptions.assumeTrue(uaePassFaults != null, "Set UAEPASS_FAULT_INJECTION=true to run fault injection scenarios");
+        provisionLinkedUserRealm(null, uaePassFaults.identityProviderOverrides());
+    }
+
+    @AfterEach
+    void clearFaults() {
+        if (uaePassFaults != null) {
+            uaePassFaults.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("Brokered login latency with a slow UAE Pass token endpoint")
+    @Description("Adds latency and jitter to the token endpoint and measures login latency and Keycloak thread usage.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("UAE Pass fault injection")
+    public void testLoginWithSlowTokenEndpoint() {
+        measureLoginsUnderFault("slow token endpoint", INJECTED_LATENCY.minus(INJECTED_JITTER),
+                () -> uaePassFaults.addLatency(UaePassEndpoint.TOKEN, INJECTED_LATENCY, INJECTED_JITTER));
+    }
+
+    @Test
+    @DisplayName("Brokered login latency with a slow UAE Pass userinfo endpoint")
+    @Description("Adds latency and jitter to the userinfo endpoint and measures login latency and Keycloak thread usage.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("UAE Pass fault injection")
+    public void testLoginWithSlowUserinfoEndpoint() {
+        measureLoginsUnderFault("slow userinfo endpoint", INJECTED_LATENCY.minus(INJECTED_JITTER),
+                () -> uaePassFaults.addLatency(UaePassEndpoint.USERINFO, INJECTED_LATENCY, INJECTED_JITTER));
+    }
+
+    @Test
+    @DisplayName("Brokered login latency with limited UAE Pass bandwidth")
+    @Description("Limits the token and userinfo response bandwidth and measures login latency.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("UAE Pass fault injection")
+    public void testLoginWithLimitedBandwidth() {
+        measureLoginsUnderFault("limited bandwidth (1 KB/s)", Duration.ZERO, () -> {
+            uaePassFaults.limitBandwidth(UaePassEndpoint.TOKEN, 1);
+            uaePassFaults.limitBandwidth(UaePassEndpoint.USERINFO, 1);
+        });
+    }
+
+    @Test
+    @DisplayName("Brokered login fails fast when UAE Pass resets the token connection")
+    @Description("Resets token endpoint connections and measures how long Keycloak takes to show the broker error.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("UAE Pass fault injection")
+    public void testLoginWithTokenConnectionReset() {
+        uaePassFaults.resetConnections(UaePassEndpoint.TOKEN, Duration.ZERO);
+        LatencyRecorder timeToError = measureBrokerFailures();
+        attachReport("UAE Pass fault: token connection reset", timeToError.summary());
+    }
+
+    @Test
+    @DisplayName("Brokered login when the UAE Pass userinfo endpoint never answers")
+    @Description("Black-holes the userinfo endpoint; the time to the broker error shows the effective Keycloak socket timeout.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("UAE Pass fault injection")
+    public void testLoginWithUnresponsiveUserinfoEndpoint() {
+        uaePassFaults.blackhole(UaePassEndpoint.USERINFO);
+        LatencyRecorder timeToError = measureBrokerFailures();
+        attachReport("UAE Pass fault: userinfo black hole", timeToError.summary());
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * @param minimumSlowdown Least the fault adds to the mean login; each login calls the faulted endpoint once,
+     *                        so an added latency of L ± J costs at least L - J
+     */
+    private void measureLoginsUnderFault(String scenario, Duration minimumSlowdown, Runnable fault) {
+        LatencyRecorder baseline = new LatencyRecorder("baseline");
+        LatencyRecorder faulted = new LatencyRecorder(scenario);
+
+        Allure.step("Step 1: Baseline logins without faults",
+                () -> repeatBrowserLogin(LOGINS_PER_SCENARIO, baseline));
+
+        Allure.step("Step 2: Logins with " + scenario, () -> {
+            fault.run();
+            try (GaugeSampler threads = keycloakThreadSampler()) {
+                for (int i = 0; i < LOGINS_PER_SCENARIO; i++) {
+                    browserLogin(faulted, Duration.ofMinutes(2));
+                }
+                attachReport("UAE Pass fault: " + scenario, String.join("\n",
+                        baseline.summary(),
+                        faulted.summary(),
+                        threads.summary()));
+            }
+        });
+
+        assertEquals(0, faulted.errors(), "Logins should still succeed with " + scenario);
+        Duration slowdown = faulted.mean().minus(baseline.mean());
+        assertTrue(slowdown.compareTo(minimumSlowdown) >= 0, "Faulted logins should be at least "
+                + minimumSlowdown.toMillis() + " ms slower than baseline, were " + slowdown.toMillis() + " ms");
+    }
+
+    /**
+     * Click through to UAE Pass and time how long the broker endpoint takes to come back with an error page
+     */
+    private LatencyRecorder measureBrokerFailures() {
+        LatencyRecorder timeToError = new LatencyRecorder("time to broker error");
+        for (int i = 0; i < LOGINS_PER_SCENARIO; i++) {
+            page.context().clearCookies();
+            page.navigate(createMedadSSO());
+            long start = System.nanoTime();
+            page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
+            page.waitForURL("**/broker/**/endpoint**", new Page.WaitForURLOptions().setTimeout(Duration.ofMinutes(2).toMillis()));
+            assertThat(page.locator("#kc-error-message")).containsText(BROKER_ERROR_MESSAGE);
+            timeToError.record(start, System.nanoTime());
+            captureScreenshot("Broker error page", page);
+            assertTrue(!page.url().startsWith(TEST_CLIENT_OIDC_CALLBACK_URL), "Login should not reach the client");
+        }
+        return timeToError;
+    }
+
+    /**
+     * Live threads summed over all Keycloak nodes
+     */
+    private GaugeSampler keycloakThreadSampler() {
+        return new GaugeSampler("keycloak live threads",
+                () -> scrapeKeycloakMetrics().sum("jvm_threads_live_threads"))
+                .start(Duration.ofMillis(250));
+    }
+}
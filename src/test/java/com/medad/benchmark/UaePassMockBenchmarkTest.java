@@ -0,0 +1,236 @@
+package com.medad.benchmark;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.metrics.LatencyRecorder;
+import com.medad.mock.UaePassMockContainer;
+import com.medad.mock.UaePassMockMode;
+import com.medad.mock.UaePassMockProfile;
+import com.medad.mock.UaePassStubServer;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sustained throughput of the UAE Pass mock on its own, so a Keycloak load test knows its ceiling.
+ * Only the mock is started (no Keycloak, database or browser):
+ *   mvn test -Pbenchmark -Dtest=UaePassMockBenchmarkTest -DUAEPASS_MOCK_MODE=stateful -DUAEPASS_MOCK_PROFILE=load
+ *   mvn test -Pbenchmark -Dtest=UaePassMockBenchmarkTest -DUAEPASS_MOCK_MODE=stateful -DUAEPASS_MOCK_PROFILE=functional
+ *   mvn test -Pbenchmark -Dtest=UaePassMockBenchmarkTest -DUAEPASS_MOCK_MODE=in-jvm
+ * Each virtual user repeats authorize, token and userinfo calls, the same calls one brokered login makes;
+ * with UAEPASS_MOCK_MODE=stateful or in-jvm every iteration uses its own code and token. The fixed mappings
+ * share one code lifecycle, so with UAEPASS_MOCK_MODE=fixed a single virtual user runs.
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+@Tag("benchmark")
+public class UaePassMockBenchmarkTest {
+
+    private static final UaePassMockProfile UAE_PASS_MOCK_PROFILE =
+            UaePassMockProfile.fromName(EnvironmentConfig.get("UAEPASS_MOCK_PROFILE", "functional"));
+    private static final UaePassMockMode UAE_PASS_MOCK_MODE =
+            UaePassMockMode.fromName(EnvironmentConfig.get("UAEPASS_MOCK_MODE", "fixed"));
+
+    private static final int MOCK_CONCURRENCY = UAE_PASS_MOCK_MODE.issuesCodePerLogin()
+            ? EnvironmentConfig.getInt("UAEPASS_MOCK_CONCURRENCY", 64) : 1;
+    private static final Duration MOCK_DURATION =
+            Duration.ofSeconds(EnvironmentConfig.getInt("UAEPASS_MOCK_DURATION_SECONDS", 30));
+    private static final int MOCK_MIN_RPS = EnvironmentConfig.getInt("UAEPASS_MOCK_MIN_RPS", 0);
+
+    private static final String BROKER_REDIRECT_URI = "http://keycloak:8080/realms/medad/broker/uaepass/endpoint";
+    private static final String FIXED_AUTH_CODE = "dc13889d-069e-31c4-bbf6-9c5fa73ace9e";
+    private static final String FIXED_ACCESS_TOKEN = "2947c6c6-f735-385c-ac4d-7bc5fe8de195";
+    private static final Pattern CODE_PATTERN = Pattern.compile("[?&]code=([^&]+)");
+    private static final Pattern ACCESS_TOKEN_PATTERN = Pattern.compile("\"access_token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private static UaePassMockContainer uaePassMock;
+    private static UaePassStubServer uaePassStub;
+    private static String uaePassBaseUrl;
+
+    @BeforeAll
+    static void startUaePassMock() {
+        if (UAE_PASS_MOCK_MODE.runsInJvm()) {
+            uaePassStub = new UaePassStubServer(0);
+            uaePassStub.start();
+            uaePassBaseUrl = uaePassStub.baseUrl("localhost");
+        } else {
+            uaePassMock = new UaePassMockContainer(UAE_PASS_MOCK_MODE, UAE_PASS_MOCK_PROFILE);
+            uaePassMock.start();
+            uaePassBaseUrl = uaePassMock.getBaseUrl();
+        }
+    }
+
+    @AfterAll
+    static void stopUaePassMock() {
+        if (uaePassStub != null) {
+            uaePassStub.stop();
+        }
+        if (uaePassMock != null) {
+            uaePassMock.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("UAE Pass mock benchmark: sustained requests per second")
+    @Description("Drives authorize, token and userinfo requests at the mock with virtual threads and reports sustained throughput for the UAEPASS_MOCK_PROFILE in use.")
+    @Severity(SeverityLevel.MINOR)
+    @Story("UAE Pass mock capacity")
+    public void benchmarkUaePassMock() throws Exception {
+        LatencyRecorder authorize = new LatencyRecorder("GET /authorize");
+        LatencyRecorder token = new LatencyRecorder("POST /token");
+        LatencyRecorder userinfo = new LatencyRecorder("GET /userinfo");
+        LatencyRecorder total = new LatencyRecorder("all requests");
+
+        Allure.step("Step 1: Warm up the mock", () -> runLoad(Duration.ofSeconds(5),
+                new LatencyRecorder("warmup"), new LatencyRecorder("warmup"),
+                new LatencyRecorder("warmup"), new LatencyRecorder("warmup")));
+
+        Allure.step("Step 2: Drive " + MOCK_CONCURRENCY + " virtual users for " + MOCK_DURATION.toSeconds() + " s",
+                () -> runLoad(MOCK_DURATION, authorize, token, userinfo, total));
+
+        String report = String.join("\n",
+                "Mock profile         : " + UAE_PASS_MOCK_PROFILE,
+                "Mock mode            : " + UAE_PASS_MOCK_MODE,
+                "Virtual users        : " + MOCK_CONCURRENCY,
+                String.format("Sustained throughput : %.0f req/s", total.throughputPerSecond()),
+                authorize.summary(),
+                token.summary(),
+                userinfo.summary(),
+                total.summary());
+        System.out.println("\n" + report);
+        Allure.addAttachment("UAE Pass mock benchmark (" + UAE_PASS_MOCK_PROFILE + ")", "text/plain", report);
+
+        assertEquals(0, total.errors(), "The mock should answer every request with its expected status");
+        assertTrue(total.throughputPerSecond() >= MOCK_MIN_RPS,
+                "Mock throughput should be at least " + MOCK_MIN_RPS + " req/s");
+    }
+
+    private void runLoad(Duration duration, LatencyRecorder authorize, LatencyRecorder token,
+                         LatencyRecorder userinfo, LatencyRecorder total) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < MOCK_CONCURRENCY; i++) {
+                int user = i;
+                running.add(users.submit(() -> {
+                    for (int iteration = 0; System.nanoTime() < deadline; iteration++) {
+                        String state = "bench-" + user + "-" + iteration;
+                        HttpResponse<String> redirect = send(authorizeRequest(state), 302, authorize, total);
+                        HttpResponse<String> tokenResponse = send(tokenRequest(codeFrom(redirect)), 200, token, total);
+                        send(userinfoRequest(accessTokenFrom(tokenResponse)), 200, userinfo, total);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> user : running) {
+                user.get();
+            }
+        }
+        System.out.println("✓ " + total.summary());
+    }
+
+    /**
+     * @param expectedStatus Status counted as success; any other status is an error
+     * @return The response, or null if the request failed
+     */
+    private HttpResponse<String> send(HttpRequest request, int expectedStatus, LatencyRecorder endpoint, LatencyRecorder total) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long end = System.nanoTime();
+            if (response.statusCode() == expectedStatus) {
+                endpoint.record(start, end);
+                total.record(start, end);
+            } else {
+                endpoint.recordError(start, end);
+                total.recordError(start, end);
+            }
+            return response;
+        } catch (Exception e) {
+            long end = System.nanoTime();
+            endpoint.recordError(start, end);
+            total.recordError(start, end);
+            return null;
+        }
+    }
+
+    private static String codeFrom(HttpResponse<String> redirect) {
+        if (redirect != null) {
+            Matcher matcher = CODE_PATTERN.matcher(redirect.headers().firstValue("Location").orElse(""));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return FIXED_AUTH_CODE;
+    }
+
+    private static String accessTokenFrom(HttpResponse<String> tokenResponse) {
+        if (tokenResponse != null && tokenResponse.statusCode() == 200) {
+            Matcher matcher = ACCESS_TOKEN_PATTERN.matcher(tokenResponse.body());
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return FIXED_ACCESS_TOKEN;
+    }
+
+    private HttpRequest authorizeRequest(String state) {
+        String query = String.join("&",
+                "response_type=code",
+                "client_id=" + UaePassStubServer.CLIENT_ID,
+                "state=" + state,
+                "redirect_uri=" + encode(BROKER_REDIRECT_URI),
+                "acr_values=" + encode(UaePassStubServer.ACR_VALUES));
+        return HttpRequest.newBuilder(URI.create(uaePassBaseUrl + "/authorize?" + query)).GET().build();
+    }
+
+    private HttpRequest tokenRequest(String code) {
+        String form = String.join("&",
+                "grant_type=authorization_code",
+                "code=" + encode(code),
+                "redirect_uri=" + encode(BROKER_REDIRECT_URI),
+                "client_id=" + UaePassStubServer.CLIENT_ID,
+                "client_secret=" + UaePassStubServer.CLIENT_SECRET);
+        return HttpRequest.newBuilder(URI.create(uaePassBaseUrl + "/token"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private HttpRequest userinfoRequest(String accessToken) {
+        return HttpRequest.newBuilder(URI.create(uaePassBaseUrl + "/userinfo"))
+                .header("Authorization", "Bearer " + accessToken)
+                .GET()
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
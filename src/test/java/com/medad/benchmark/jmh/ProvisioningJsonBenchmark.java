@@ -0,0 +1,120 @@
+package com.medad.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.medad.utils.IdentityProviderManager;
+import com.medad.utils.UserManager;
+import com.medad.utils.UserProfileAttributes;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON work the fixture and provisioning layer repeats for every realm, identity provider and user it seeds,
+ * measured without Keycloak. Run with the jmh profile:
+ *   mvn -Pjmh test-compile exec:exec
+ *   mvn -Pjmh test-compile exec:exec -Djmh.benchmarks=ProvisioningJsonBenchmark.userRepresentation -Djmh.options="-f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProvisioningJsonBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Custom attributes on the seeded user, and attributes already in the realm's user profile
+     */
+    @Param({"0", "20"})
+    public int attributeCount;
+
+    private final IdentityProviderManager identityProviderManager = new IdentityProviderManager(null);
+    private JsonNode idpNode;
+    private Map<String, String> idpReplacements;
+    private JsonNode realmNode;
+    private JsonNode userNode;
+    private JsonNode existingUserProfile;
+    private JsonNode userProfileConfig;
+
+    @Setup
+    public void loadFixtures() throws IOException {
+        idpNode = identityProviderManager.getIdentityProviderNodeByAlias("idp-configs.json", "uaepass");
+        idpReplacements = Map.of(
+                "uaepass.base.url", "http://localhost:32768/idshub",
+                "uaepass.internal.url", "http://uaepass:8080/idshub");
+
+        for (JsonNode node : readResource("realm-configs.json").get("realms")) {
+            if (node.get("realm").asText().equals("medad")) {
+                realmNode = node;
+            }
+        }
+
+        ObjectNode user = new UserManager(null).getUserNodeByUsername("users.json", "LinkedUser").deepCopy();
+        ObjectNode attributes = user.putObject("attributes");
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put("attribute" + i, "value" + i);
+        }
+        userNode = user;
+
+        ObjectNode profile = objectMapper.createObjectNode();
+        ArrayNode profileAttributes = profile.putArray("attributes");
+        for (String name : new String[]{"username", "email", "firstName", "lastName"}) {
+            profileAttributes.addObject().put("name", name);
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            profileAttributes.addObject().put("name", "attribute" + i).put("displayName", "Attribute " + i);
+        }
+        existingUserProfile = profile;
+        userProfileConfig = readResource("user-profile-config.json");
+    }
+
+    @Benchmark
+    public JsonNode replacePlaceholders() {
+        return identityProviderManager.replacePlaceholders(idpNode, idpReplacements);
+    }
+
+    @Benchmark
+    public RealmRepresentation realmTreeToValue() throws IOException {
+        return objectMapper.treeToValue(realmNode, RealmRepresentation.class);
+    }
+
+    @Benchmark
+    public UserRepresentation userRepresentation() {
+        return UserManager.toUserRepresentation(userNode);
+    }
+
+    @Benchmark
+    public ObjectNode userProfileMerge() {
+        // merge updates its input, as it does with the freshly read profile in addAttributesToUserProfile
+        return UserProfileAttributes.merge(existingUserProfile.deepCopy(), userProfileConfig);
+    }
+
+    private static JsonNode readResource(String name) throws IOException {
+        try (InputStream inputStream = ProvisioningJsonBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            if (inputStream == null) {
+                throw new IOException("File not found in classpath: " + name);
+            }
+            return objectMapper.readTree(inputStream);
+        }
+    }
+}
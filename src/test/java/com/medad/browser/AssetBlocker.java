@@ -0,0 +1,138 @@
+package com.medad.browser;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.config.ExecutionProfile;
+import com.microsoft.playwright.APIResponse;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Route interception for non-visual runs
+ * Responsibility: stub images and abort fonts (and optionally stylesheets and media) on one test's page,
+ * and count what that saved
+ *
+ * Images are answered with a 1x1 PNG instead of being aborted, so an &lt;img&gt; keeps a box and its alt text
+ * and getByRole selectors like the UAE Pass link still match and stay clickable. Each asset is downloaded once
+ * per run to learn its size and transfer time; later requests for it are answered locally.
+ * ASSET_BLOCKING=off | auto (default: on when the profile records neither video nor screenshots)
+ * | a list of image,font,stylesheet,media.
+ */
+public class AssetBlocker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetBlocker.class);
+    private static final Pattern STATIC_ASSET = Pattern.compile(
+            ".*\\.(png|jpe?g|gif|svg|webp|ico|woff2?|ttf|otf|eot|css|mp4|webm)(\\?.*)?$", Pattern.CASE_INSENSITIVE);
+    private static final byte[] TRANSPARENT_PIXEL = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==");
+    private static final Set<String> DEFAULT_TYPES = Set.of("image", "font");
+
+    // url -> size and download time of the real asset, measured the first time it is blocked
+    private record AssetCost(long bytes, long nanos) {}
+    private static final Map<String, AssetCost> costs = new ConcurrentHashMap<>();
+
+    private final Set<String> blockedTypes;
+    private int blockedRequests;
+    // Blocked requests that still downloaded the asset to measure it, so saved nothing
+    private int measuredRequests;
+    private long bytesSaved;
+    private long nanosSaved;
+
+    private AssetBlocker(Set<String> blockedTypes) {
+        this.blockedTypes = blockedTypes;
+    }
+
+    /**
+     * Resource types to block for the profile, empty if blocking is off
+     */
+    public static Set<String> blockedTypes(ExecutionProfile profile) {
+        String setting = EnvironmentConfig.get("ASSET_BLOCKING", "auto").trim().toLowerCase(Locale.ROOT);
+        return switch (setting) {
+            case "off", "false", "" -> Set.of();
+            case "auto" -> profile.recordVideo() || profile.screenshots() ? Set.of() : DEFAULT_TYPES;
+            case "on", "true" -> DEFAULT_TYPES;
+            default -> Arrays.stream(setting.split(","))
+                    .map(String::trim)
+                    .filter(type -> !type.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+        };
+    }
+
+    /**
+     * Route the page's static assets through a new blocker
+     * @return The blocker, or null if nothing is blocked for this profile
+     */
+    public static AssetBlocker install(Page page, ExecutionProfile profile) {
+        Set<String> types = blockedTypes(profile);
+        if (types.isEmpty()) {
+            return null;
+        }
+        AssetBlocker blocker = new AssetBlocker(types);
+        // Only asset URLs are routed; routing turns off the HTTP cache for the page, which these no longer need
+        page.route(STATIC_ASSET, blocker::handle);
+        return blocker;
+    }
+
+    private void handle(Route route) {
+        String type = route.request().resourceType();
+        if (!blockedTypes.contains(type)) {
+            route.resume();
+            return;
+        }
+        String url = route.request().url();
+        AssetCost cost = costs.get(url);
+        boolean measured = cost == null;
+        if (measured) {
+            long started = System.nanoTime();
+            APIResponse response = route.fetch();
+            cost = new AssetCost(response.body().length, System.nanoTime() - started);
+            costs.putIfAbsent(url, cost);
+        }
+        blockedRequests++;
+        if (measured) {
+            measuredRequests++;
+        } else {
+            bytesSaved += type.equals("image") ? Math.max(0, cost.bytes() - TRANSPARENT_PIXEL.length) : cost.bytes();
+            nanosSaved += cost.nanos();
+        }
+        if (type.equals("image")) {
+            route.fulfill(new Route.FulfillOptions()
+                    .setStatus(200)
+                    .setContentType("image/png")
+                    .setBodyBytes(TRANSPARENT_PIXEL));
+        } else if (type.equals("stylesheet")) {
+            route.fulfill(new Route.FulfillOptions().setStatus(200).setContentType("text/css").setBody(""));
+        } else {
+            route.abort("blockedbyclient");
+        }
+    }
+
+    /**
+     * What this test's page did not download; requests that fetched the asset to measure it do not count
+     * The time is the summed download time of the blocked assets, an upper bound since browsers fetch in parallel.
+     */
+    public String summary() {
+        return String.format("Blocked %d asset request(s) (%s, %d downloaded once to measure them): "
+                        + "~%d KB and up to %d ms of transfer saved",
+                blockedRequests, String.join(",", blockedTypes), measuredRequests, bytesSaved / 1024,
+                nanosSaved / 1_000_000);
+    }
+
+    public int blockedRequests() {
+        return blockedRequests;
+    }
+
+    public long bytesSaved() {
+        return bytesSaved;
+    }
+}
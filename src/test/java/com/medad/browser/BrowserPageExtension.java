@@ -0,0 +1,29 @@
+package com.medad.browser;
+
+import com.microsoft.playwright.Page;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+/**
+ * Injects a {@link Page} from the calling worker's {@link BrowserPool} into @BeforeEach and test methods
+ * The same page is returned for every parameter of one test; classes annotated {@link WithoutBrowser} get null.
+ */
+public class BrowserPageExtension implements ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(BrowserPageExtension.class);
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == Page.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        if (extensionContext.getRequiredTestClass().isAnnotationPresent(WithoutBrowser.class)) {
+            return null;
+        }
+        return extensionContext.getStore(NAMESPACE)
+                .getOrComputeIfAbsent("page", key -> BrowserPool.newPage(), Page.class);
+    }
+}
@@ -0,0 +1,141 @@
+package com.medad.browser;
+
+import com.google.gson.JsonObject;
+import com.medad.config.ExecutionProfile;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One Playwright, Chromium and browser context per JUnit worker thread
+ * Responsibility: hand out a fresh page per test and reuse the worker's context by clearing its state
+ *
+ * Playwright objects are not thread-safe, so nothing here is shared between threads; a JUnit test
+ * (including its @BeforeEach/@AfterEach methods) runs on a single worker thread.
+ */
+public final class BrowserPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrowserPool.class);
+    private static final ExecutionProfile profile = ExecutionProfile.fromEnvironment();
+    public static final Path VIDEO_DIRECTORY = Paths.get("target", "artifacts-tmp", "videos");
+
+    private static final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private static final Set<String> originsToClear = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Worker> currentWorker = ThreadLocal.withInitial(() -> {
+        Worker worker = new Worker();
+        workers.add(worker);
+        return worker;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(BrowserPool::closeAll, "browser-pool-shutdown"));
+    }
+
+    private BrowserPool() {}
+
+    /**
+     * Fresh page in the calling thread's (reset) browser context
+     */
+    public static Page newPage() {
+        return currentWorker.get().newPage();
+    }
+
+    /**
+     * Origins whose local/session storage is wiped when a context is reused (e.g., Keycloak, relying party)
+     * @param url Any URL on the origin
+     */
+    public static void clearStorageOf(String url) {
+        URI uri = URI.create(url);
+        originsToClear.add(uri.getScheme() + "://" + uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : ""));
+    }
+
+    public static int size() {
+        return workers.size();
+    }
+
+    private static void closeAll() {
+        for (Worker worker : workers) {
+            try {
+                worker.close();
+            } catch (RuntimeException e) {
+                // the driver process is going away with the JVM anyway
+            }
+        }
+    }
+
+    private static final class Worker {
+
+        private final Playwright playwright;
+        private final Browser browser;
+        private BrowserContext context;
+
+        Worker() {
+            playwright = Playwright.create();
+            browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(profile.headless())
+                    .setSlowMo(profile.slowMoMillis()));
+            logger.info("✓ Browser worker started on thread '{}' ({} profile)",
+                    Thread.currentThread().getName(), profile.name());
+        }
+
+        Page newPage() {
+            if (context == null) {
+                Browser.NewContextOptions options = new Browser.NewContextOptions()
+                        .setViewportSize(profile.viewportWidth(), profile.viewportHeight());
+                if (profile.recordVideo()) {
+                    options.setRecordVideoDir(VIDEO_DIRECTORY)
+                            .setRecordVideoSize(profile.viewportWidth(), profile.viewportHeight());
+                }
+                context = browser.newContext(options);
+                return context.newPage();
+            }
+            reset();
+            return context.newPage();
+        }
+
+        /**
+         * Make a reused context look new: no pages, cookies, permissions or web storage
+         */
+        private void reset() {
+            for (Page leftover : List.copyOf(context.pages())) {
+                leftover.close();
+            }
+            context.clearCookies();
+            context.clearPermissions();
+            if (originsToClear.isEmpty()) {
+                return;
+            }
+            Page blank = context.newPage();
+            CDPSession cdp = context.newCDPSession(blank);
+            for (String origin : originsToClear) {
+                JsonObject params = new JsonObject();
+                params.addProperty("origin", origin);
+                params.addProperty("storageTypes", "local_storage,session_storage,indexeddb,cache_storage,service_workers");
+                cdp.send("Storage.clearDataForOrigin", params);
+            }
+            cdp.detach();
+            blank.close();
+        }
+
+        void close() {
+            if (context != null) {
+                context.close();
+            }
+            browser.close();
+            playwright.close();
+        }
+    }
+}
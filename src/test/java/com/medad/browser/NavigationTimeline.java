@@ -0,0 +1,76 @@
+package com.medad.browser;
+
+import com.medad.protocol.LoginPhase;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Main-frame navigations of a test's page, redirects included
+ * Responsibility: split the last brokered browser login into the LoginPhase timings a browserless login reports,
+ * using the start time of each navigation request
+ *
+ * AUTHORIZE runs from the Keycloak authorization request to the redirect to UAE Pass (login page and click
+ * included), BROKER_ROUND_TRIP from there until the broker endpoint redirects onward, CALLBACK from that
+ * redirect to the relying-party callback.
+ */
+public class NavigationTimeline {
+
+    private static final String AUTHORIZATION_PATH = "/protocol/openid-connect/auth";
+
+    private final List<Request> navigations = new CopyOnWriteArrayList<>();
+
+    private NavigationTimeline() {
+    }
+
+    public static NavigationTimeline install(Page page) {
+        NavigationTimeline timeline = new NavigationTimeline();
+        page.onRequest(request -> {
+            if (request.isNavigationRequest() && request.frame() == page.mainFrame()) {
+                timeline.navigations.add(request);
+            }
+        });
+        return timeline;
+    }
+
+    /**
+     * Browser phases of the last login that reached the callback
+     * @param brokerBaseUrl Browser-facing UAE Pass base URL
+     * @param callbackUrl Relying-party callback the login ended on
+     * @return The three browser phases, or an empty map if the navigations do not show a full brokered login
+     */
+    public Map<LoginPhase, Duration> brokerLoginPhases(String brokerBaseUrl, String callbackUrl) {
+        List<Request> requests = List.copyOf(navigations);
+        int callback = lastIndex(requests, requests.size() - 1, url -> url.startsWith(callbackUrl));
+        int endpoint = lastIndex(requests, callback - 1, url -> url.contains("/broker/") && url.contains("/endpoint"));
+        int broker = lastIndex(requests, endpoint - 1, url -> url.startsWith(brokerBaseUrl));
+        int authorize = lastIndex(requests, broker - 1, url -> url.contains(AUTHORIZATION_PATH));
+        if (authorize < 0) {
+            return Map.of();
+        }
+        Map<LoginPhase, Duration> phases = new EnumMap<>(LoginPhase.class);
+        phases.put(LoginPhase.AUTHORIZE, between(requests.get(authorize), requests.get(broker)));
+        phases.put(LoginPhase.BROKER_ROUND_TRIP, between(requests.get(broker), requests.get(endpoint + 1)));
+        phases.put(LoginPhase.CALLBACK, between(requests.get(endpoint + 1), requests.get(callback)));
+        return phases;
+    }
+
+    private static int lastIndex(List<Request> requests, int from, Predicate<String> matches) {
+        for (int i = from; i >= 0; i--) {
+            if (matches.test(requests.get(i).url())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Duration between(Request from, Request to) {
+        return Duration.ofMillis(Math.round(to.timing().startTime - from.timing().startTime));
+    }
+}
@@ -0,0 +1,268 @@
+package com.medad.browser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medad.config.EnvironmentConfig;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Load performance of the Medad theme pages a test visits
+ * Responsibility: collect Navigation Timing, resource timing, LCP and CLS for every login theme page,
+ * keyed by the template that rendered it, and check them against the page budgets
+ *
+ * An init script observes each document and reports it through an exposed function when it has loaded,
+ * when the page is hidden (navigating away) and on flush(); the last report of a document wins, so LCP
+ * and CLS cover the document's whole life. Pages that are not rendered by a known template (UAE Pass mock,
+ * relying party callback) are ignored. The browser cache is cleared on install, so a test's first load of each
+ * template is cold even though the worker's context (and StorageStateCache logins) carry over between tests.
+ * PAGE_METRICS=off | report (default) | enforce (a page over budget fails the test);
+ * PAGE_BUDGET_LOAD_MS, PAGE_BUDGET_LCP_MS, PAGE_BUDGET_CLS, with a _<TEMPLATE> suffix to override one template
+ * (e.g., PAGE_BUDGET_LCP_MS_UAEPASS_ERROR).
+ */
+public class PageMetricsCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageMetricsCollector.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String MODE = EnvironmentConfig.get("PAGE_METRICS", "report").toLowerCase(Locale.ROOT);
+    private static final String BINDING = "__medadReportPage";
+    private static final Path RUN_REPORT = Path.of("target", "page-metrics.csv");
+
+    // Template of a document: its "template: x.ftl" marker, otherwise the form or block only that template renders.
+    // uaepass-error.ftl has a marker, so kc-error-message without one is the base theme's error.ftl
+    private static final Map<String, String> TEMPLATE_ELEMENTS = Map.of(
+            "kc-form-login", "login.ftl",
+            "kc-register-form", "register.ftl",
+            "kc-existing-account-question-form", "idp-existing-account-question.ftl",
+            "kc-error-message", "error.ftl",
+            "kc-reset-password-form", "login-reset-password.ftl",
+            "kc-passwd-update-form", "login-update-password.ftl");
+
+    private static final String INIT_SCRIPT = """
+            (() => {
+              if (window.__medadVitals) return;
+              const vitals = window.__medadVitals = { id: Math.random().toString(36).slice(2), lcp: 0, cls: 0 };
+              try {
+                new PerformanceObserver(list => list.getEntries().forEach(e => vitals.lcp = e.renderTime || e.loadTime || e.startTime))
+                  .observe({ type: 'largest-contentful-paint', buffered: true });
+                new PerformanceObserver(list => list.getEntries().forEach(e => { if (!e.hadRecentInput) vitals.cls += e.value; }))
+                  .observe({ type: 'layout-shift', buffered: true });
+              } catch (e) { /* observer types not supported */ }
+              const template = () => {
+                const comments = document.createTreeWalker(document, NodeFilter.SHOW_COMMENT);
+                for (let node = comments.nextNode(); node; node = comments.nextNode()) {
+                  const marker = /template:\\s*([\\w.-]+)/.exec(node.nodeValue);
+                  if (marker) return marker[1];
+                }
+                const elements = %s;
+                const id = Object.keys(elements).find(id => document.getElementById(id));
+                return id ? elements[id] : null;
+              };
+              const report = () => {
+                const nav = performance.getEntriesByType('navigation')[0];
+                if (!nav || !window.%s) return;
+                const resources = performance.getEntriesByType('resource');
+                const slowest = resources.reduce((a, b) => (!a || b.duration > a.duration ? b : a), null);
+                window.%s(JSON.stringify({
+                  id: vitals.id, template: template(), url: location.href,
+                  ttfb: nav.responseStart, domContentLoaded: nav.domContentLoadedEventEnd, load: nav.loadEventEnd,
+                  lcp: vitals.lcp, cls: vitals.cls, resources: resources.length,
+                  transferBytes: resources.reduce((sum, r) => sum + (r.transferSize || 0), nav.transferSize || 0),
+                  slowestResource: slowest ? slowest.name : '', slowestResourceMs: slowest ? slowest.duration : 0
+                }));
+              };
+              window.__medadFlushPageMetrics = report;
+              window.addEventListener('load', () => setTimeout(report, 0));
+              window.addEventListener('pagehide', report);
+            })();
+            """;
+
+    /**
+     * One document's metrics; times are milliseconds from the start of its navigation
+     */
+    public record PageMetrics(String template, String url, double ttfbMs, double domContentLoadedMs, double loadMs,
+                              double lcpMs, double cls, int resources, long transferBytes,
+                              String slowestResource, double slowestResourceMs) {
+
+        String row() {
+            return String.format(Locale.ROOT, "%-36s ttfb=%5.0fms dcl=%5.0fms load=%5.0fms lcp=%5.0fms cls=%.3f "
+                            + "resources=%-3d %5d KB slowest=%.0fms %s",
+                    template, ttfbMs, domContentLoadedMs, loadMs, lcpMs, cls, resources, transferBytes / 1024,
+                    slowestResourceMs, slowestResource);
+        }
+    }
+
+    // Every theme page of the run, per template, written to RUN_REPORT at shutdown
+    private static final Map<String, List<PageMetrics>> runPages = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(PageMetricsCollector::writeRunReport, "page-metrics-report"));
+    }
+
+    // document id -> latest report; filled on the Playwright dispatch thread while the test thread waits
+    private final Map<String, PageMetrics> documents = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final boolean assetsStubbed;
+
+    private PageMetricsCollector(boolean assetsStubbed) {
+        this.assetsStubbed = assetsStubbed;
+    }
+
+    /**
+     * Observe every document the page loads from now on
+     * @param assetsStubbed AssetBlocker is active on the page; the numbers are then reported but not enforced
+     * @return The collector, or null with PAGE_METRICS=off
+     */
+    public static PageMetricsCollector install(Page page, boolean assetsStubbed) {
+        if (MODE.equals("off")) {
+            return null;
+        }
+        PageMetricsCollector collector = new PageMetricsCollector(assetsStubbed);
+        String elements;
+        try {
+            elements = objectMapper.writeValueAsString(TEMPLATE_ELEMENTS);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        page.exposeFunction(BINDING, args -> {
+            collector.record(String.valueOf(args[0]));
+            return null;
+        });
+        page.addInitScript(String.format(INIT_SCRIPT, elements, BINDING, BINDING));
+        clearHttpCache(page);
+        return collector;
+    }
+
+    /**
+     * Drop the theme assets an earlier test left in the reused context's HTTP cache (Chromium DevTools protocol)
+     */
+    private static void clearHttpCache(Page page) {
+        try {
+            CDPSession devTools = page.context().newCDPSession(page);
+            devTools.send("Network.clearBrowserCache");
+            devTools.detach();
+        } catch (PlaywrightException e) {
+            logger.warn("⚠ Could not clear the browser cache; page metrics may include cached loads", e);
+        }
+    }
+
+    private void record(String json) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (node.path("template").isNull()) {
+                return;
+            }
+            documents.put(node.path("id").asText(), new PageMetrics(
+                    node.path("template").asText(), node.path("url").asText(),
+                    node.path("ttfb").asDouble(), node.path("domContentLoaded").asDouble(), node.path("load").asDouble(),
+                    node.path("lcp").asDouble(), node.path("cls").asDouble(), node.path("resources").asInt(),
+                    node.path("transferBytes").asLong(),
+                    node.path("slowestResource").asText(), node.path("slowestResourceMs").asDouble()));
+        } catch (IOException e) {
+            logger.warn("⚠ Unreadable page metrics report: {}", json, e);
+        }
+    }
+
+    /**
+     * Report the current document now, e.g. at a test step or before the page is closed
+     */
+    public void flush(Page page) {
+        try {
+            page.evaluate("() => window.__medadFlushPageMetrics && window.__medadFlushPageMetrics()");
+        } catch (PlaywrightException e) {
+            // page closed or navigating; the document reports itself on pagehide
+        }
+    }
+
+    /**
+     * Theme pages of this test in the order they were first seen; adds them to the run report
+     */
+    public List<PageMetrics> finish() {
+        List<PageMetrics> pages;
+        synchronized (documents) {
+            pages = List.copyOf(documents.values());
+        }
+        pages.forEach(metrics -> runPages.computeIfAbsent(metrics.template(), template -> new CopyOnWriteArrayList<>())
+                .add(metrics));
+        return pages;
+    }
+
+    public static String describe(List<PageMetrics> pages) {
+        StringBuilder text = new StringBuilder();
+        pages.forEach(metrics -> text.append(metrics.row()).append('\n'));
+        return text.toString();
+    }
+
+    /**
+     * Budget violations of the pages, empty if none or if budgets are not enforced for this run
+     */
+    public List<String> violations(List<PageMetrics> pages) {
+        if (!MODE.equals("enforce")) {
+            return List.of();
+        }
+        if (assetsStubbed) {
+            logger.info("⚠ Page budgets not checked: theme assets were stubbed (ASSET_BLOCKING)");
+            return List.of();
+        }
+        List<String> violations = new ArrayList<>();
+        for (PageMetrics metrics : pages) {
+            check(violations, metrics, "LOAD_MS", metrics.loadMs(), 3000);
+            check(violations, metrics, "LCP_MS", metrics.lcpMs(), 2500);
+            check(violations, metrics, "CLS", metrics.cls(), 0.1);
+        }
+        return violations;
+    }
+
+    private static void check(List<String> violations, PageMetrics metrics, String metric, double value,
+                              double defaultBudget) {
+        double budget = budget(metrics.template(), metric, defaultBudget);
+        if (value > budget) {
+            violations.add(String.format(Locale.ROOT, "%s %s %.3f over budget %.3f (%s)",
+                    metrics.template(), metric, value, budget, metrics.url()));
+        }
+    }
+
+    private static double budget(String template, String metric, double defaultBudget) {
+        String global = EnvironmentConfig.get("PAGE_BUDGET_" + metric, String.valueOf(defaultBudget));
+        String suffix = template.replace(".ftl", "").replaceAll("[^A-Za-z0-9]", "_").toUpperCase(Locale.ROOT);
+        return Double.parseDouble(EnvironmentConfig.get("PAGE_BUDGET_" + metric + "_" + suffix, global));
+    }
+
+    private static void writeRunReport() {
+        if (runPages.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("template,url,ttfb_ms,dom_content_loaded_ms,load_ms,lcp_ms,cls,resources,transfer_bytes,"
+                + "slowest_resource_ms,slowest_resource");
+        runPages.forEach((template, pages) -> pages.forEach(metrics -> lines.add(String.format(Locale.ROOT,
+                "%s,%s,%.1f,%.1f,%.1f,%.1f,%.4f,%d,%d,%.1f,%s", template, csv(metrics.url()), metrics.ttfbMs(),
+                metrics.domContentLoadedMs(), metrics.loadMs(), metrics.lcpMs(), metrics.cls(), metrics.resources(),
+                metrics.transferBytes(), metrics.slowestResourceMs(), csv(metrics.slowestResource())))));
+        try {
+            Files.createDirectories(RUN_REPORT.getParent());
+            Files.write(RUN_REPORT, lines);
+            logger.info("✓ Page metrics of {} template(s) written to {}", runPages.size(), RUN_REPORT);
+        } catch (IOException e) {
+            logger.warn("⚠ Could not write {}", RUN_REPORT, e);
+        }
+    }
+
+    private static String csv(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
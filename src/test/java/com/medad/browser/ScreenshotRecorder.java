@@ -0,0 +1,106 @@
+package com.medad.browser;
+
+import com.medad.config.EnvironmentConfig;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.ScreenshotType;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Screenshot evidence for one test
+ * Responsibility: capture compressed screenshots, skip frames identical to one already attached,
+ * cap the number per test and write the Allure attachment files off the test thread
+ *
+ * Playwright pages may only be used from the thread that owns them, so the capture itself stays on the test
+ * thread; Chromium encodes the JPEG there. The attachment is registered in the current Allure step right away
+ * (Allure tracks steps per thread) and only its content is written in the background.
+ * SCREENSHOT_FORMAT=jpeg|png, SCREENSHOT_QUALITY=1..100 (jpeg), SCREENSHOT_MAX_PER_TEST.
+ */
+public class ScreenshotRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotRecorder.class);
+    private static final ScreenshotType FORMAT =
+            EnvironmentConfig.get("SCREENSHOT_FORMAT", "jpeg").trim().toLowerCase(Locale.ROOT).equals("png")
+                    ? ScreenshotType.PNG : ScreenshotType.JPEG;
+    private static final int QUALITY = EnvironmentConfig.getInt("SCREENSHOT_QUALITY", 70);
+    private static final int MAX_PER_TEST = EnvironmentConfig.getInt("SCREENSHOT_MAX_PER_TEST", 20);
+    private static final ExecutorService writer = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "screenshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<String> attachedHashes = new HashSet<>();
+    private final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>();
+    private int skippedDuplicates;
+    private int skippedOverCap;
+
+    /**
+     * Attach a screenshot of the page to the current Allure step, unless it repeats an earlier frame
+     * or the test already has SCREENSHOT_MAX_PER_TEST screenshots
+     */
+    public void capture(String name, Page page) {
+        if (attachedHashes.size() >= MAX_PER_TEST) {
+            skippedOverCap++;
+            return;
+        }
+        Page.ScreenshotOptions options = new Page.ScreenshotOptions().setType(FORMAT);
+        if (FORMAT == ScreenshotType.JPEG) {
+            options.setQuality(QUALITY);
+        }
+        byte[] screenshot = page.screenshot(options);
+        if (!attachedHashes.add(sha256(screenshot))) {
+            skippedDuplicates++;
+            return;
+        }
+
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String source = FORMAT == ScreenshotType.JPEG
+                ? lifecycle.prepareAttachment(name, "image/jpeg", ".jpg")
+                : lifecycle.prepareAttachment(name, "image/png", ".png");
+        pendingWrites.add(CompletableFuture.runAsync(
+                () -> lifecycle.writeAttachment(source, new ByteArrayInputStream(screenshot)), writer));
+    }
+
+    /**
+     * Wait for this test's attachment files to be written; call before the test result is closed
+     */
+    public void await() {
+        try {
+            CompletableFuture.allOf(pendingWrites.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("⚠ Not all screenshots were written", e);
+        }
+        if (skippedDuplicates > 0 || skippedOverCap > 0) {
+            logger.info("Screenshots: {} attached, {} identical skipped, {} over the cap of {}",
+                    attachedHashes.size(), skippedDuplicates, skippedOverCap, MAX_PER_TEST);
+        }
+        pendingWrites.clear();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.medad.browser;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.options.Cookie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Authenticated browser state, shared by tests that only check post-login behaviour
+ * Responsibility: keep the cookies of one real login per realm, user and identity provider and put them
+ * into a later test's browser context, unless the Keycloak session behind them has ended
+ *
+ * Keycloak keeps the SSO session in cookies (KEYCLOAK_IDENTITY, KEYCLOAK_SESSION), so the cookies are the
+ * storage state that matters; they are added to the worker's pooled context rather than a new one.
+ */
+public final class StorageStateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageStateCache.class);
+
+    public record Key(String realm, String username, String idpAlias) {}
+
+    /**
+     * @param sessionIds Keycloak sessions of the user right after the login; one of them must still be active
+     */
+    private record Entry(List<Cookie> cookies, Set<String> sessionIds) {}
+
+    private static final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private StorageStateCache() {}
+
+    /**
+     * Remember the context's cookies after a successful login
+     * @param sessionIds The user's active sessions, read from the admin API after the login
+     */
+    public static void save(Key key, BrowserContext context, Set<String> sessionIds) {
+        entries.put(key, new Entry(List.copyOf(context.cookies()), Set.copyOf(sessionIds)));
+        logger.info("✓ Stored login state for {}", key);
+    }
+
+    /**
+     * Put a stored login into the context
+     * @param activeSessions Looks up the user's current session ids (e.g., UserManager#getUserSessionIds)
+     * @return false if nothing is stored or the stored session has expired; the caller logs in normally
+     */
+    public static boolean restore(Key key, BrowserContext context, Function<Key, Set<String>> activeSessions) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        double nowSeconds = System.currentTimeMillis() / 1000.0;
+        boolean cookiesExpired = entry.cookies().stream()
+                .anyMatch(cookie -> cookie.expires != null && cookie.expires > 0 && cookie.expires < nowSeconds);
+        Set<String> active = cookiesExpired ? Set.of() : activeSessions.apply(key);
+        if (entry.sessionIds().stream().noneMatch(active::contains)) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            logger.info("⚠ Stored login for {} has expired, a full login is needed", key);
+            return false;
+        }
+        context.addCookies(entry.cookies());
+        hits.incrementAndGet();
+        logger.info("✓ Restored login state for {}", key);
+        return true;
+    }
+
+    /**
+     * Forget every login in a realm, e.g. when the realm is deleted
+     */
+    public static void evictRealm(String realm) {
+        entries.keySet().removeIf(key -> key.realm().equals(realm));
+    }
+
+    public static String summary() {
+        return "Login state cache: " + hits.get() + " restored, " + misses.get() + " full logins needed";
+    }
+}
@@ -0,0 +1,17 @@
+package com.medad.browser;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tests of the annotated class drive no browser: {@link BrowserPageExtension} injects no page,
+ * so no context is reset and no video or trace is recorded for them
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface WithoutBrowser {
+}
@@ -0,0 +1,100 @@
+package com.medad.cluster;
+
+import com.medad.logging.ContainerLogPipeline;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+
+import java.util.List;
+
+/**
+ * nginx reverse proxy in front of the Keycloak cluster nodes
+ * Responsibility: render the upstream configuration for the chosen routing mode and expose one entry point
+ */
+public class LoadBalancerContainer extends GenericContainer<LoadBalancerContainer> {
+
+    private static final int PORT = 8080;
+
+    private final RoutingMode routingMode;
+
+    /**
+     * @param network Shared test network the Keycloak nodes are on
+     * @param upstreams Network alias and port of every node (e.g., "keycloak-1:8080"); the alias doubles as the
+     *                  node name Keycloak appends to AUTH_SESSION_ID as its route
+     * @param routingMode Sticky or round-robin routing
+     */
+    public LoadBalancerContainer(Network network, List<String> upstreams, RoutingMode routingMode) {
+        super("nginx:1.27-alpine");
+        this.routingMode = routingMode;
+
+        withNetwork(network);
+        withExposedPorts(PORT);
+        withCopyToContainer(Transferable.of(renderConfig(upstreams, routingMode)), "/etc/nginx/conf.d/default.conf");
+        // Any realm endpoint answering means at least one node is reachable through the proxy
+        waitingFor(Wait.forHttp("/realms/master").forPort(PORT));
+        withLogConsumer(ContainerLogPipeline.consumer("LOAD-BALANCER"));
+    }
+
+    public RoutingMode getRoutingMode() {
+        return routingMode;
+    }
+
+    /**
+     * Base URL of the proxy as seen from the test JVM and the browser
+     */
+    public String getBaseUrl() {
+        return String.format("http://%s:%d", getHost(), getMappedPort(PORT));
+    }
+
+    static String renderConfig(List<String> upstreams, RoutingMode routingMode) {
+        StringBuilder config = new StringBuilder("upstream keycloak {\n");
+        for (String upstream : upstreams) {
+            config.append("    server ").append(upstream).append(";\n");
+        }
+        config.append("}\n\n");
+        String backend = "keycloak";
+        if (routingMode == RoutingMode.STICKY) {
+            // Keycloak ends AUTH_SESSION_ID with ".<node name>" of the node owning the session;
+            // requests without the cookie, or with an unknown route, stay round-robin
+            config.append("map $cookie_AUTH_SESSION_ID $keycloak_backend {\n")
+                    .append("    default keycloak;\n");
+            for (String upstream : upstreams) {
+                String node = nodeName(upstream);
+                config.append("    ~\\.").append(node.replace(".", "\\.")).append("$ ").append(routeUpstream(node)).append(";\n");
+            }
+            config.append("}\n\n");
+            for (String upstream : upstreams) {
+                config.append("upstream ").append(routeUpstream(nodeName(upstream))).append(" {\n")
+                        .append("    server ").append(upstream).append(";\n")
+                        .append("}\n\n");
+            }
+            backend = "$keycloak_backend";
+        }
+        config.append("server {\n")
+                .append("    listen ").append(PORT).append(";\n")
+                .append("    location / {\n")
+                // A variable naming a defined upstream group needs no resolver
+                .append("        proxy_pass http://").append(backend).append(";\n")
+                // Keep the browser-facing host:port so Keycloak builds redirect URIs and issuers against the proxy
+                .append("        proxy_set_header Host $http_host;\n")
+                .append("        proxy_set_header X-Forwarded-For $proxy_add_x_forwarded_for;\n")
+                .append("        proxy_set_header X-Forwarded-Proto $scheme;\n")
+                // Keycloak login responses carry large cookies
+                .append("        proxy_buffer_size 128k;\n")
+                .append("        proxy_buffers 4 256k;\n")
+                .append("        proxy_busy_buffers_size 256k;\n")
+                .append("    }\n")
+                .append("}\n");
+        return config.toString();
+    }
+
+    private static String routeUpstream(String node) {
+        return "route_" + node;
+    }
+
+    private static String nodeName(String upstream) {
+        int port = upstream.lastIndexOf(':');
+        return port < 0 ? upstream : upstream.substring(0, port);
+    }
+}
@@ -0,0 +1,25 @@
+package com.medad.cluster;
+
+import java.util.Locale;
+
+/**
+ * How the local load balancer spreads requests over the Keycloak nodes
+ */
+public enum RoutingMode {
+
+    /**
+     * Requests go to the node named by the route suffix Keycloak appends to the AUTH_SESSION_ID cookie
+     * (".keycloak-2"), so a login stays on the node owning its authentication session; requests without the cookie
+     * are round-robin
+     */
+    STICKY,
+
+    /**
+     * Every request may land on a different node, so authentication sessions are read through Infinispan
+     */
+    ROUND_ROBIN;
+
+    public static RoutingMode fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -10,6 +10,26 @@ public class EnvironmentConfig {
 
     private EnvironmentConfig() {}
 
+    /**
+     * Read a setting, letting -Dkey=value on the Maven command line override the .env file
+     * @param key Setting name (e.g., "DB_VENDOR")
+     * @param defaultValue Value used when the setting is missing or blank
+     * @return Resolved value
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            value = DOTENV.get(key);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
 
+    public static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, String.valueOf(defaultValue)));
+    }
 
 }
@@ -0,0 +1,50 @@
+package com.medad.config;
+
+import java.util.Locale;
+
+/**
+ * How the Playwright user agent runs, selected with EXECUTION_PROFILE
+ *
+ * @param headless Launch Chromium without a window
+ * @param slowMoMillis Delay added to every Playwright action
+ * @param recordVideo Record a video per test and attach it
+ * @param tracing Record a Playwright trace per test and attach it
+ * @param screenshots Attach the screenshots tests take with captureScreenshot
+ */
+public record ExecutionProfile(String name, boolean headless, int slowMoMillis, boolean recordVideo,
+                               boolean tracing, boolean screenshots, int viewportWidth, int viewportHeight) {
+
+    /**
+     * Watch the run: visible browser, slowed down, video and screenshots (the original behaviour)
+     */
+    public static final ExecutionProfile DEBUG =
+            new ExecutionProfile("debug", false, 500, true, false, true, 1280, 720);
+
+    /**
+     * Local iteration: headless, no slow-mo, no video or screenshots
+     */
+    public static final ExecutionProfile FAST =
+            new ExecutionProfile("fast", true, 0, false, false, false, 1280, 720);
+
+    /**
+     * Pipelines: headless with a trace and screenshots per test instead of video
+     */
+    public static final ExecutionProfile CI =
+            new ExecutionProfile("ci", true, 0, false, true, true, 1280, 720);
+
+    public static ExecutionProfile fromName(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "debug" -> DEBUG;
+            case "fast" -> FAST;
+            case "ci" -> CI;
+            default -> throw new IllegalArgumentException("Unknown EXECUTION_PROFILE: " + name + " (debug, fast or ci)");
+        };
+    }
+
+    /**
+     * Profile from EXECUTION_PROFILE, defaulting to debug
+     */
+    public static ExecutionProfile fromEnvironment() {
+        return fromName(EnvironmentConfig.get("EXECUTION_PROFILE", "debug"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.medad.database;
+
+import com.medad.config.EnvironmentConfig;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.Network;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Database strategy behind the Medad Identity (Keycloak) container
+ * Responsibility: provide the database container (if any) and the KC_DB* settings Keycloak starts with
+ *
+ * Selected with DB_VENDOR in .env or -DDB_VENDOR=... on the Maven command line:
+ * mysql (default), postgres, dev-file
+ */
+public interface DatabaseBackend {
+
+    /**
+     * Keycloak vendor name; used both for KC_DB and for the KC_DB build argument of the Dockerfile
+     */
+    String vendor();
+
+    /**
+     * Database container to start before Keycloak, or null when the database is embedded in Keycloak
+     */
+    JdbcDatabaseContainer<?> container();
+
+    /**
+     * Environment variables that point Keycloak at this database
+     */
+    Map<String, String> keycloakEnvironment();
+
+    /**
+     * Statement profiling of the Keycloak schema, or null when the backend does not support it or it is off
+     */
+    default StatementProfiler statementProfiler() {
+        return null;
+    }
+
+    /**
+     * Build the backend configured by DB_VENDOR
+     * @param network Shared test network the database joins
+     * @return Selected backend
+     */
+    static DatabaseBackend fromEnvironment(Network network) {
+        String vendor = EnvironmentConfig.get("DB_VENDOR", MySqlDatabaseBackend.VENDOR).toLowerCase(Locale.ROOT);
+
+        switch (vendor) {
+            case MySqlDatabaseBackend.VENDOR:
+                return new MySqlDatabaseBackend(network);
+            case PostgresDatabaseBackend.VENDOR:
+            case "postgresql":
+                return new PostgresDatabaseBackend(network);
+            case DevFileDatabaseBackend.VENDOR:
+                return new DevFileDatabaseBackend();
+            default:
+                throw new IllegalArgumentException("Unsupported DB_VENDOR: " + vendor
+                        + " (expected mysql, postgres or dev-file)");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.medad.database;
+
+import org.testcontainers.containers.JdbcDatabaseContainer;
+
+import java.util.Map;
+
+/**
+ * Keycloak's embedded H2 file database (KC_DB=dev-file)
+ * No database container is started, which makes this the fastest option for local runs.
+ * Not suitable for clustering or for representative latency numbers.
+ */
+public class DevFileDatabaseBackend implements DatabaseBackend {
+
+    static final String VENDOR = "dev-file";
+
+    @Override
+    public String vendor() {
+        return VENDOR;
+    }
+
+    @Override
+    public JdbcDatabaseContainer<?> container() {
+        return null;
+    }
+
+    @Override
+    public Map<String, String> keycloakEnvironment() {
+        return Map.of("KC_DB", VENDOR);
+    }
+}
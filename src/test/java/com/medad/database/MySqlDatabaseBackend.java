@@ -0,0 +1,76 @@
+package com.medad.database;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.logging.ContainerLogPipeline;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MySQL 8 database running in its own container on the shared network
+ * With MYSQL_STATEMENT_PROFILING (default on) the server keeps a slow query log in mysql.slow_log for statements
+ * over MYSQL_SLOW_QUERY_SECONDS; together with performance_schema this feeds the per-test statement report.
+ */
+public class MySqlDatabaseBackend implements DatabaseBackend {
+
+    static final String VENDOR = "mysql";
+    private static final String NETWORK_ALIAS = "mysql";
+    private static final int PORT = 3306;
+
+    private static final boolean STATEMENT_PROFILING = EnvironmentConfig.getBoolean("MYSQL_STATEMENT_PROFILING", true);
+
+    private final MySQLContainer<?> container;
+
+    @SuppressWarnings("resource")
+    public MySqlDatabaseBackend(Network network) {
+        this.container = new MySQLContainer<>("mysql:8")
+                .withNetwork(network)
+                .withNetworkAliases(NETWORK_ALIAS)
+                .withDatabaseName(EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME"))
+                .withUsername(EnvironmentConfig.DOTENV.get("DB_USERNAME"))
+                .withPassword(EnvironmentConfig.DOTENV.get("DB_PASSWORD"))
+                .waitingFor(Wait.forListeningPort())
+                .withLogConsumer(ContainerLogPipeline.consumer("MYSQL"));
+        if (STATEMENT_PROFILING) {
+            container.withCommand(
+                    "--performance-schema=ON",
+                    "--slow-query-log=ON",
+                    "--log-output=TABLE",
+                    "--long-query-time=" + EnvironmentConfig.get("MYSQL_SLOW_QUERY_SECONDS", "0.1"));
+        }
+    }
+
+    @Override
+    public String vendor() {
+        return VENDOR;
+    }
+
+    @Override
+    public JdbcDatabaseContainer<?> container() {
+        return container;
+    }
+
+    @Override
+    public Map<String, String> keycloakEnvironment() {
+        Map<String, String> env = new HashMap<>();
+        env.put("KC_DB", VENDOR);
+        env.put("KC_DB_URL", String.format("jdbc:mysql://%s:%d/%s",
+                NETWORK_ALIAS, PORT, EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME")));
+        env.put("KC_DB_USERNAME", EnvironmentConfig.DOTENV.get("DB_USERNAME"));
+        env.put("KC_DB_PASSWORD", EnvironmentConfig.DOTENV.get("DB_PASSWORD"));
+        return env;
+    }
+
+    @Override
+    public StatementProfiler statementProfiler() {
+        if (!STATEMENT_PROFILING) {
+            return null;
+        }
+        return new MySqlStatementProfiler(container, EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME"),
+                EnvironmentConfig.getInt("MYSQL_PROFILE_TOP", 10));
+    }
+}
@@ -0,0 +1,173 @@
+package com.medad.database;
+
+import org.testcontainers.containers.JdbcDatabaseContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Statement profiling of MySQL from performance_schema and the slow query log
+ * Responsibility: read events_statements_summary_by_digest for the Keycloak schema and mysql.slow_log,
+ * and rank the statements of a window by total time, rows examined and calls
+ *
+ * Needs the server started with the slow log written to a table (see MySqlDatabaseBackend). Queries run as root
+ * without a default schema, so the profiler's own statements are not counted against the Keycloak schema.
+ */
+public class MySqlStatementProfiler implements StatementProfiler {
+
+    private static final int STATEMENT_WIDTH = 160;
+
+    private static final String DIGESTS = """
+            SELECT DIGEST, DIGEST_TEXT, COUNT_STAR, SUM_TIMER_WAIT, SUM_ROWS_EXAMINED, SUM_ROWS_SENT, SUM_NO_INDEX_USED
+            FROM performance_schema.events_statements_summary_by_digest
+            WHERE SCHEMA_NAME = ? AND DIGEST IS NOT NULL""";
+
+    private static final String SLOW_LOG = """
+            SELECT start_time,
+                   (HOUR(query_time) * 3600 + MINUTE(query_time) * 60 + SECOND(query_time)) * 1000
+                       + MICROSECOND(query_time) / 1000,
+                   rows_examined, rows_sent, CONVERT(sql_text USING utf8mb4)
+            FROM mysql.slow_log
+            WHERE db = ? AND start_time >= FROM_UNIXTIME(? / 1000)
+            ORDER BY query_time DESC
+            LIMIT ?""";
+
+    // InnoDB lock counters, enabled by default (they also back the Innodb_row_lock_* status variables)
+    private static final String LOCK_COUNTERS = """
+            SELECT NAME, COUNT
+            FROM information_schema.INNODB_METRICS
+            WHERE NAME IN ('lock_deadlocks', 'lock_timeouts', 'lock_row_lock_waits', 'lock_row_lock_time')""";
+
+    private final JdbcDatabaseContainer<?> container;
+    private final String schema;
+    private final int top;
+
+    /**
+     * @param schema Keycloak's database
+     * @param top Statements listed per ranking
+     */
+    public MySqlStatementProfiler(JdbcDatabaseContainer<?> container, String schema, int top) {
+        this.container = container;
+        this.schema = schema;
+        this.top = top;
+    }
+
+    private Connection connect() throws SQLException {
+        String url = String.format("jdbc:mysql://%s:%d/", container.getHost(), container.getMappedPort(3306));
+        return DriverManager.getConnection(url, "root", container.getPassword());
+    }
+
+    @Override
+    public Map<String, StatementDigest> snapshot() {
+        Map<String, StatementDigest> digests = new HashMap<>();
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(DIGESTS)) {
+            statement.setString(1, schema);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    // Timers are in picoseconds
+                    StatementDigest digest = new StatementDigest(rows.getString(1), rows.getString(2),
+                            rows.getLong(3), rows.getLong(4) / 1_000_000_000.0, rows.getLong(5), rows.getLong(6),
+                            rows.getLong(7));
+                    digests.put(digest.digest(), digest);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to read performance_schema statement digests", e);
+        }
+        return digests;
+    }
+
+    @Override
+    public String report(Map<String, StatementDigest> before, long sinceMillis) {
+        List<StatementDigest> window = new ArrayList<>();
+        snapshot().forEach((digest, now) -> {
+            StatementDigest delta = now.minus(before.get(digest));
+            if (delta.calls() > 0) {
+                window.add(delta);
+            }
+        });
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Statements on %s: %d digests, %d calls, %.1f ms, %d rows examined%n", schema, window.size(),
+                window.stream().mapToLong(StatementDigest::calls).sum(),
+                window.stream().mapToDouble(StatementDigest::totalMillis).sum(),
+                window.stream().mapToLong(StatementDigest::rowsExamined).sum()));
+        section(report, "Top by total time", window, Comparator.comparingDouble(StatementDigest::totalMillis), digest -> true);
+        section(report, "Top by rows examined", window, Comparator.comparingLong(StatementDigest::rowsExamined),
+                digest -> digest.rowsExamined() > 0);
+        section(report, "Top by calls", window, Comparator.comparingLong(StatementDigest::calls), digest -> true);
+        section(report, "Table scans without an index", window, Comparator.comparingLong(StatementDigest::rowsExamined),
+                digest -> digest.noIndexCalls() > 0);
+        report.append("\nSlow query log\n").append(slowLog(sinceMillis));
+        return report.toString();
+    }
+
+    @Override
+    public Map<String, Long> lockCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(LOCK_COUNTERS);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                counters.put(rows.getString(1), rows.getLong(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to read InnoDB lock counters", e);
+        }
+        return counters;
+    }
+
+    private void section(StringBuilder report, String title, List<StatementDigest> window,
+                         Comparator<StatementDigest> order, Predicate<StatementDigest> filter) {
+        report.append('\n').append(title).append('\n');
+        report.append(String.format(Locale.ROOT, "  %8s %10s %9s %12s %10s %8s  %s%n",
+                "calls", "total ms", "mean ms", "rows exam.", "rows sent", "no index", "statement"));
+        window.stream()
+                .filter(filter)
+                .sorted(order.reversed())
+                .limit(top)
+                .forEach(digest -> report.append(String.format(Locale.ROOT, "  %8d %10.1f %9.2f %12d %10d %8d  %s%n",
+                        digest.calls(), digest.totalMillis(), digest.meanMillis(), digest.rowsExamined(),
+                        digest.rowsSent(), digest.noIndexCalls(), abbreviate(digest.text()))));
+    }
+
+    private String slowLog(long sinceMillis) {
+        StringBuilder entries = new StringBuilder();
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(SLOW_LOG)) {
+            statement.setString(1, schema);
+            statement.setLong(2, sinceMillis);
+            statement.setInt(3, top);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    entries.append(String.format(Locale.ROOT, "  %s %10.1f ms  rows examined %d, sent %d  %s%n",
+                            rows.getTimestamp(1).toLocalDateTime().toLocalTime(), rows.getDouble(2),
+                            rows.getLong(3), rows.getLong(4), abbreviate(rows.getString(5))));
+                }
+            }
+        } catch (SQLException e) {
+            return "  (not available: " + e.getMessage() + ")\n";
+        }
+        return entries.isEmpty() ? "  (none)\n" : entries.toString();
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String line = sql.replaceAll("\\s+", " ").trim();
+        return line.length() <= STATEMENT_WIDTH ? line : line.substring(0, STATEMENT_WIDTH - 3) + "...";
+    }
+}
@@ -0,0 +1,55 @@
+package com.medad.database;
+
+import com.medad.config.EnvironmentConfig;
+import com.medad.logging.ContainerLogPipeline;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PostgreSQL 16 database running in its own container on the shared network
+ */
+public class PostgresDatabaseBackend implements DatabaseBackend {
+
+    static final String VENDOR = "postgres";
+    private static final String NETWORK_ALIAS = "postgres";
+    private static final int PORT = 5432;
+
+    private final PostgreSQLContainer<?> container;
+
+    @SuppressWarnings("resource")
+    public PostgresDatabaseBackend(Network network) {
+        // PostgreSQLContainer already waits for the "ready to accept connections" log line
+        this.container = new PostgreSQLContainer<>("postgres:16")
+                .withNetwork(network)
+                .withNetworkAliases(NETWORK_ALIAS)
+                .withDatabaseName(EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME"))
+                .withUsername(EnvironmentConfig.DOTENV.get("DB_USERNAME"))
+                .withPassword(EnvironmentConfig.DOTENV.get("DB_PASSWORD"))
+                .withLogConsumer(ContainerLogPipeline.consumer("POSTGRES"));
+    }
+
+    @Override
+    public String vendor() {
+        return VENDOR;
+    }
+
+    @Override
+    public JdbcDatabaseContainer<?> container() {
+        return container;
+    }
+
+    @Override
+    public Map<String, String> keycloakEnvironment() {
+        Map<String, String> env = new HashMap<>();
+        env.put("KC_DB", VENDOR);
+        env.put("KC_DB_URL", String.format("jdbc:postgresql://%s:%d/%s",
+                NETWORK_ALIAS, PORT, EnvironmentConfig.DOTENV.get("DB_DATABASE_NAME")));
+        env.put("KC_DB_USERNAME", EnvironmentConfig.DOTENV.get("DB_USERNAME"));
+        env.put("KC_DB_PASSWORD", EnvironmentConfig.DOTENV.get("DB_PASSWORD"));
+        return env;
+    }
+}
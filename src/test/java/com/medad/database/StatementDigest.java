@@ -0,0 +1,28 @@
+package com.medad.database;
+
+/**
+ * Cumulative statistics of one normalised statement (literals replaced by ?), as the database keeps them per digest
+ *
+ * @param totalMillis Total execution time of all calls
+ * @param noIndexCalls Calls that scanned a table without using an index
+ */
+public record StatementDigest(String digest, String text, long calls, double totalMillis, long rowsExamined,
+                              long rowsSent, long noIndexCalls) {
+
+    /**
+     * Statistics gathered since an earlier reading of the same digest; a missing or larger earlier reading
+     * means the statistics were reset, so this reading is taken as is
+     */
+    public StatementDigest minus(StatementDigest earlier) {
+        if (earlier == null || earlier.calls() > calls) {
+            return this;
+        }
+        return new StatementDigest(digest, text, calls - earlier.calls(), totalMillis - earlier.totalMillis(),
+                rowsExamined - earlier.rowsExamined(), rowsSent - earlier.rowsSent(),
+                noIndexCalls - earlier.noIndexCalls());
+    }
+
+    public double meanMillis() {
+        return calls == 0 ? 0 : totalMillis / calls;
+    }
+}
@@ -0,0 +1,31 @@
+package com.medad.database;
+
+import java.util.Map;
+
+/**
+ * Statement statistics of the Keycloak schema, read from the database itself
+ * Responsibility: snapshot per-digest statistics and report what ran between a snapshot and now
+ *
+ * The statistics are server-wide, so statements of tests running in parallel show up in each other's reports.
+ */
+public interface StatementProfiler {
+
+    /**
+     * Cumulative statistics per digest so far
+     */
+    Map<String, StatementDigest> snapshot();
+
+    /**
+     * Top statements since the snapshot, plus slow-log entries since the given instant
+     * @param before Snapshot taken when the window started
+     * @param sinceMillis Start of the window, epoch millis
+     */
+    String report(Map<String, StatementDigest> before, long sinceMillis);
+
+    /**
+     * Cumulative lock contention counters (deadlocks, lock wait timeouts, row lock waits), empty if not available
+     */
+    default Map<String, Long> lockCounters() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,40 @@
+package com.medad.faults;
+
+/**
+ * Back-channel UAE Pass endpoints Keycloak calls; each gets its own proxy so faults can target one of them
+ */
+public enum UaePassEndpoint {
+    TOKEN("uaepass-token", 8666, "tokenUrl", "/token"),
+    USERINFO("uaepass-userinfo", 8667, "userInfoUrl", "/userinfo");
+
+    private final String proxyName;
+    private final int listenPort;
+    private final String idpConfigKey;
+    private final String path;
+
+    UaePassEndpoint(String proxyName, int listenPort, String idpConfigKey, String path) {
+        this.proxyName = proxyName;
+        this.listenPort = listenPort;
+        this.idpConfigKey = idpConfigKey;
+        this.path = path;
+    }
+
+    public String getProxyName() {
+        return proxyName;
+    }
+
+    public int getListenPort() {
+        return listenPort;
+    }
+
+    /**
+     * Identity provider config entry holding this endpoint's URL
+     */
+    public String getIdpConfigKey() {
+        return idpConfigKey;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
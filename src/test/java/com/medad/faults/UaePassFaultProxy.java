@@ -0,0 +1,170 @@
+package com.medad.faults;
+
+import com.medad.logging.ContainerLogPipeline;
+import eu.rekawek.toxiproxy.Proxy;
+import eu.rekawek.toxiproxy.ToxiproxyClient;
+import eu.rekawek.toxiproxy.model.ToxicDirection;
+import eu.rekawek.toxiproxy.model.toxic.Latency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.ToxiproxyContainer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Toxiproxy between Keycloak and the UAE Pass mock's back-channel endpoints
+ * Responsibility: start the proxy container and change latency, bandwidth and connection faults from tests
+ *
+ * Only server-to-server traffic (token and userinfo) goes through the proxy; the browser still
+ * reaches /authorize on the mock directly.
+ */
+public class UaePassFaultProxy {
+
+    private static final Logger logger = LoggerFactory.getLogger(UaePassFaultProxy.class);
+    private static final String NETWORK_ALIAS = "uaepass-toxiproxy";
+
+    private final ToxiproxyContainer container;
+    private final String upstream;
+    private final Map<UaePassEndpoint, Proxy> proxies = new EnumMap<>(UaePassEndpoint.class);
+
+    /**
+     * @param network Shared test network
+     * @param upstreamAlias Network alias of the UAE Pass mock
+     * @param upstreamPort Port of the UAE Pass mock inside the network
+     */
+    @SuppressWarnings("resource")
+    public UaePassFaultProxy(Network network, String upstreamAlias, int upstreamPort) {
+        this.upstream = upstreamAlias + ":" + upstreamPort;
+        this.container = new ToxiproxyContainer("ghcr.io/shopify/toxiproxy:2.5.0")
+                .withNetwork(network)
+                .withNetworkAliases(NETWORK_ALIAS)
+                .withLogConsumer(ContainerLogPipeline.consumer("UAEPASS-TOXIPROXY"));
+    }
+
+    public void start() {
+        container.start();
+        ToxiproxyClient client = new ToxiproxyClient(container.getHost(), container.getControlPort());
+        try {
+            for (UaePassEndpoint endpoint : UaePassEndpoint.values()) {
+                proxies.put(endpoint, client.createProxy(endpoint.getProxyName(),
+                        "0.0.0.0:" + endpoint.getListenPort(), upstream));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create UAE Pass proxies", e);
+        }
+        logger.info("✓ UAE Pass fault proxy started in front of {}", upstream);
+    }
+
+    public void stop() {
+        container.stop();
+    }
+
+    /**
+     * Base URL (…/idshub) Keycloak should use to reach the mock through the given endpoint's proxy
+     */
+    public String internalBaseUrl(UaePassEndpoint endpoint) {
+        return String.format("http://%s:%d/idshub", NETWORK_ALIAS, endpoint.getListenPort());
+    }
+
+    /**
+     * Identity provider config overrides that send token and userinfo calls through their own proxies
+     */
+    public Map<String, String> identityProviderOverrides() {
+        Map<String, String> overrides = new HashMap<>();
+        for (UaePassEndpoint endpoint : UaePassEndpoint.values()) {
+            overrides.put(endpoint.getIdpConfigKey(), internalBaseUrl(endpoint) + endpoint.getPath());
+        }
+        return overrides;
+    }
+
+    // ==================== Faults ====================
+
+    /**
+     * Delay every response from the endpoint
+     * @param latency Added delay
+     * @param jitter Random +/- variation around the delay
+     */
+    public void addLatency(UaePassEndpoint endpoint, Duration latency, Duration jitter) {
+        try {
+            Latency toxic = proxy(endpoint).toxics()
+                    .latency(endpoint.getProxyName() + "-latency", ToxicDirection.DOWNSTREAM, latency.toMillis());
+            toxic.setJitter(jitter.toMillis());
+            logger.info("Toxic on {}: latency {} ms ± {} ms", endpoint, latency.toMillis(), jitter.toMillis());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to add latency to " + endpoint, e);
+        }
+    }
+
+    /**
+     * Limit the response bandwidth of the endpoint
+     * @param kilobytesPerSecond Downstream rate
+     */
+    public void limitBandwidth(UaePassEndpoint endpoint, long kilobytesPerSecond) {
+        try {
+            proxy(endpoint).toxics()
+                    .bandwidth(endpoint.getProxyName() + "-bandwidth", ToxicDirection.DOWNSTREAM, kilobytesPerSecond);
+            logger.info("Toxic on {}: bandwidth {} KB/s", endpoint, kilobytesPerSecond);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to limit bandwidth of " + endpoint, e);
+        }
+    }
+
+    /**
+     * Reset (TCP RST) connections to the endpoint after the given time
+     */
+    public void resetConnections(UaePassEndpoint endpoint, Duration after) {
+        try {
+            proxy(endpoint).toxics()
+                    .resetPeer(endpoint.getProxyName() + "-reset", ToxicDirection.DOWNSTREAM, after.toMillis());
+            logger.info("Toxic on {}: reset peer after {} ms", endpoint, after.toMillis());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to add connection reset to " + endpoint, e);
+        }
+    }
+
+    /**
+     * Accept connections but never answer; the caller's socket timeout decides what happens
+     */
+    public void blackhole(UaePassEndpoint endpoint) {
+        try {
+            proxy(endpoint).toxics()
+                    .timeout(endpoint.getProxyName() + "-timeout", ToxicDirection.DOWNSTREAM, 0);
+            logger.info("Toxic on {}: black hole", endpoint);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to black-hole " + endpoint, e);
+        }
+    }
+
+    /**
+     * Remove every toxic from every endpoint
+     */
+    public void clear() {
+        try {
+            for (Proxy proxy : proxies.values()) {
+                proxy.toxics().getAll().forEach(toxic -> {
+                    try {
+                        toxic.remove();
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to remove toxic " + toxic.getName(), e);
+                    }
+                });
+                proxy.enable();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to clear UAE Pass faults", e);
+        }
+    }
+
+    private Proxy proxy(UaePassEndpoint endpoint) {
+        Proxy proxy = proxies.get(endpoint);
+        if (proxy == null) {
+            throw new IllegalStateException("UAE Pass fault proxy is not started");
+        }
+        return proxy;
+    }
+}
@@ -0,0 +1,206 @@
+package com.medad.load;
+
+import com.medad.metrics.LatencyRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+
+/**
+ * Open-model load generator: operations start at a fixed arrival rate whether or not earlier ones have finished
+ * Responsibility: schedule arrivals over a warmup and a measurement phase, run each on its own virtual thread,
+ * spread them over weighted flows and record latency, throughput and errors per flow
+ *
+ * Latency is measured from the arrival's scheduled start, so a generator that falls behind shows up as latency
+ * instead of silently lowering the offered load (coordinated omission). Arrivals that would exceed
+ * maxInFlight are dropped and counted, never queued.
+ */
+public class OpenModelLoad {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenModelLoad.class);
+
+    /**
+     * @param operation Called with the flow's arrival number (0, 1, 2, ...); returns false or throws on failure
+     */
+    private record Flow(String name, int weight, IntPredicate operation, LatencyRecorder latency,
+                        AtomicInteger arrivals, AtomicLong dropped) {}
+
+    private final double arrivalsPerSecond;
+    private final Duration warmup;
+    private final Duration measurement;
+    private final int maxInFlight;
+    private final List<Flow> flows = new ArrayList<>();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * @param arrivalsPerSecond Arrivals over all flows
+     * @param maxInFlight Upper bound on concurrent operations (virtual threads)
+     */
+    public OpenModelLoad(double arrivalsPerSecond, Duration warmup, Duration measurement, int maxInFlight) {
+        if (arrivalsPerSecond <= 0) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + arrivalsPerSecond);
+        }
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.warmup = warmup;
+        this.measurement = measurement;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Add a flow receiving weight / (sum of weights) of the arrivals
+     */
+    public OpenModelLoad flow(String name, int weight, IntPredicate operation) {
+        if (weight > 0) {
+            flows.add(new Flow(name, weight, operation, new LatencyRecorder(name),
+                    new AtomicInteger(), new AtomicLong()));
+        }
+        return this;
+    }
+
+    /**
+     * Arrivals a flow gets over warmup and measurement, e.g. to provision one user per arrival beforehand
+     */
+    public int expectedArrivals(String name) {
+        int totalWeight = flows.stream().mapToInt(Flow::weight).sum();
+        double seconds = (warmup.toNanos() + measurement.toNanos()) / 1_000_000_000.0;
+        // Whole rounds of the weighted schedule, so a partial last round is covered too
+        long rounds = (long) Math.ceil(Math.ceil(arrivalsPerSecond * seconds) / totalWeight);
+        return flows.stream()
+                .filter(flow -> flow.name().equals(name))
+                .mapToInt(flow -> (int) (rounds * flow.weight()))
+                .sum();
+    }
+
+    /**
+     * Run warmup and measurement and wait for the operations still in flight
+     */
+    public Report run() {
+        if (flows.isEmpty()) {
+            throw new IllegalStateException("No flows to run");
+        }
+        List<Flow> schedule = weightedSchedule();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double intervalNanos = 1_000_000_000.0 / arrivalsPerSecond;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + measurement.toNanos();
+        logger.info("Open-model load: {}/s for {} s warmup + {} s measurement over {}",
+                arrivalsPerSecond, warmup.toSeconds(), measurement.toSeconds(),
+                flows.stream().map(flow -> flow.name() + " x" + flow.weight()).toList());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long arrival = 0; ; arrival++) {
+                long scheduled = start + (long) (arrival * intervalNanos);
+                if (scheduled >= end) {
+                    break;
+                }
+                for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                Flow flow = schedule.get((int) (arrival % schedule.size()));
+                int flowArrival = flow.arrivals().getAndIncrement();
+                boolean measured = scheduled >= measureFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        flow.dropped().incrementAndGet();
+                    }
+                    continue;
+                }
+                peakInFlight.accumulateAndGet(maxInFlight - inFlight.availablePermits(), Math::max);
+                executor.submit(() -> {
+                    boolean success = false;
+                    try {
+                        success = flow.operation().test(flowArrival);
+                    } catch (RuntimeException e) {
+                        logger.debug("{} arrival {} failed", flow.name(), flowArrival, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                    if (measured) {
+                        if (success) {
+                            flow.latency().record(scheduled, System.nanoTime());
+                        } else {
+                            flow.latency().recordError(scheduled, System.nanoTime());
+                        }
+                    }
+                });
+            }
+        }
+        return new Report(this);
+    }
+
+    /**
+     * Flows repeated by weight and interleaved, so every window of the schedule has the configured mix
+     */
+    private List<Flow> weightedSchedule() {
+        List<Flow> schedule = new ArrayList<>();
+        int maxWeight = flows.stream().mapToInt(Flow::weight).max().orElse(0);
+        for (int round = 0; round < maxWeight; round++) {
+            for (Flow flow : flows) {
+                if (round < flow.weight()) {
+                    schedule.add(flow);
+                }
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Results of one run, per flow
+     */
+    public static final class Report {
+
+        private final OpenModelLoad load;
+
+        private Report(OpenModelLoad load) {
+            this.load = load;
+        }
+
+        public LatencyRecorder latency(String flowName) {
+            return flow(flowName).latency();
+        }
+
+        public long dropped(String flowName) {
+            return flow(flowName).dropped().get();
+        }
+
+        /**
+         * Failed and dropped arrivals over all measured arrivals of all flows
+         */
+        public double errorRate() {
+            long failed = 0;
+            long total = 0;
+            for (Flow flow : load.flows) {
+                failed += flow.latency().errors() + flow.dropped().get();
+                total += flow.latency().count() + flow.latency().errors() + flow.dropped().get();
+            }
+            return total == 0 ? 0 : (double) failed / total;
+        }
+
+        private Flow flow(String name) {
+            return load.flows.stream().filter(flow -> flow.name().equals(name)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown flow: " + name));
+        }
+
+        public String summary() {
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format("Offered load         : %.1f/s, warmup %d s, measurement %d s, peak in flight %d of %d",
+                    load.arrivalsPerSecond, load.warmup.toSeconds(), load.measurement.toSeconds(),
+                    load.peakInFlight.get(), load.maxInFlight));
+            for (Flow flow : load.flows) {
+                lines.add(flow.latency().summary() + " dropped=" + flow.dropped().get());
+            }
+            lines.add(String.format("Error rate (failed + dropped): %.2f%%", errorRate() * 100));
+            return String.join("\n", lines);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.medad.logging;
+
+import com.medad.config.EnvironmentConfig;
+import io.qameta.allure.Allure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.output.OutputFrame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffers container output off the container and test threads
+ * Responsibility: parse level/category, filter, keep a bounded in-memory history and hand out
+ * per-test time slices as compressed Allure attachments
+ *
+ * Container log threads only enqueue; one daemon thread drains in batches. Only lines at or above
+ * CONTAINER_LOG_CONSOLE_LEVEL are forwarded to the test log, the rest stay in the ring buffer.
+ */
+public final class ContainerLogPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerLogPipeline.class);
+
+    private static final Pattern LEVEL = Pattern.compile("\\b(TRACE|DEBUG|INFO|NOTE|WARN|WARNING|ERROR|FATAL|SEVERE)\\b");
+    private static final Pattern CATEGORY = Pattern.compile("\\[([A-Za-z][\\w.$-]*)]");
+    private static final int HEADER_LENGTH = 80;
+    private static final int BATCH_SIZE = 512;
+
+    private static final ContainerLogPipeline INSTANCE = new ContainerLogPipeline(
+            Level.fromName(EnvironmentConfig.get("CONTAINER_LOG_LEVEL", "INFO")),
+            Level.fromName(EnvironmentConfig.get("CONTAINER_LOG_CONSOLE_LEVEL", "WARN")),
+            Arrays.stream(EnvironmentConfig.get("CONTAINER_LOG_EXCLUDE_CATEGORIES", "").split(","))
+                    .map(String::trim).filter(prefix -> !prefix.isEmpty()).toList(),
+            EnvironmentConfig.getInt("CONTAINER_LOG_BUFFER_LINES", 200_000));
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR;
+
+        static Level fromName(String name) {
+            return switch (name.trim().toUpperCase()) {
+                case "ALL", "TRACE" -> TRACE;
+                case "DEBUG" -> DEBUG;
+                case "INFO", "NOTE" -> INFO;
+                case "WARN", "WARNING" -> WARN;
+                case "ERROR", "FATAL", "SEVERE" -> ERROR;
+                default -> throw new IllegalArgumentException("Unknown log level: " + name);
+            };
+        }
+    }
+
+    /**
+     * One parsed container line
+     * @param timestampMillis When the test JVM received it
+     */
+    public record LogLine(long timestampMillis, String source, Level level, String category, String text) {
+        String format() {
+            return Instant.ofEpochMilli(timestampMillis) + " " + source + " " + text;
+        }
+    }
+
+    private record RawLine(long timestampMillis, String source, String text) {}
+
+    private final Level minimumLevel;
+    private final Level consoleLevel;
+    private final List<String> excludedCategories;
+    private final int bufferLines;
+    private final BlockingQueue<RawLine> queue = new ArrayBlockingQueue<>(65_536);
+    private final ArrayDeque<LogLine> history = new ArrayDeque<>();
+    private final Map<String, Level> lastLevelBySource = new HashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+
+    private ContainerLogPipeline(Level minimumLevel, Level consoleLevel, List<String> excludedCategories, int bufferLines) {
+        this.minimumLevel = minimumLevel;
+        this.consoleLevel = consoleLevel;
+        this.excludedCategories = excludedCategories;
+        this.bufferLines = bufferLines;
+        Thread drainer = new Thread(this::drain, "container-log-pipeline");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Log consumer for a container; use instead of Slf4jLogConsumer
+     * @param source Prefix identifying the container (e.g., "KEYCLOAK")
+     */
+    public static Consumer<OutputFrame> consumer(String source) {
+        return frame -> INSTANCE.accept(source, frame);
+    }
+
+    /**
+     * Lines received between the two instants, oldest first
+     */
+    public static List<LogLine> slice(long fromMillis, long toMillis) {
+        INSTANCE.flush();
+        synchronized (INSTANCE.history) {
+            List<LogLine> lines = new ArrayList<>();
+            for (LogLine line : INSTANCE.history) {
+                if (line.timestampMillis() >= fromMillis && line.timestampMillis() <= toMillis) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Attach the gzip-compressed container logs of a time window to the current Allure result
+     */
+    public static void attachSlice(String name, long fromMillis, long toMillis) {
+        List<LogLine> lines = slice(fromMillis, toMillis);
+        if (lines.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            for (LogLine line : lines) {
+                gzip.write(line.format().getBytes(StandardCharsets.UTF_8));
+                gzip.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Allure.addAttachment(name, "application/gzip", new ByteArrayInputStream(compressed.toByteArray()), ".log.gz");
+        long droppedLines = INSTANCE.dropped.get();
+        if (droppedLines > 0) {
+            logger.warn("⚠ {} container log lines were dropped because the pipeline queue was full", droppedLines);
+        }
+    }
+
+    // ==================== Pipeline ====================
+
+    private void accept(String source, OutputFrame frame) {
+        if (frame.getType() == OutputFrame.OutputType.END) {
+            return;
+        }
+        String text = frame.getUtf8StringWithoutLineEnding();
+        if (text.isBlank()) {
+            return;
+        }
+        if (queue.offer(new RawLine(System.currentTimeMillis(), source, text))) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        List<RawLine> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                RawLine first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                process(batch);
+                processed.addAndGet(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                processed.addAndGet(batch.size());
+                batch.clear();
+                logger.error("✗ Container log pipeline failed to process a batch", e);
+            }
+        }
+    }
+
+    private void process(List<RawLine> batch) {
+        List<LogLine> kept = new ArrayList<>(batch.size());
+        for (RawLine raw : batch) {
+            LogLine line = parse(raw);
+            if (line.level().compareTo(minimumLevel) < 0 || isExcluded(line.category())) {
+                continue;
+            }
+            kept.add(line);
+            if (line.level().compareTo(consoleLevel) >= 0) {
+                switch (line.level()) {
+                    case ERROR -> logger.error("[{}] {}", line.source(), line.text());
+                    case WARN -> logger.warn("[{}] {}", line.source(), line.text());
+                    default -> logger.info("[{}] {}", line.source(), line.text());
+                }
+            }
+        }
+        synchronized (history) {
+            for (LogLine line : kept) {
+                if (history.size() >= bufferLines) {
+                    history.removeFirst();
+                }
+                history.addLast(line);
+            }
+        }
+    }
+
+    private LogLine parse(RawLine raw) {
+        String header = raw.text().length() > HEADER_LENGTH ? raw.text().substring(0, HEADER_LENGTH) : raw.text();
+        Matcher levelMatcher = LEVEL.matcher(header);
+        Level level;
+        if (levelMatcher.find()) {
+            level = Level.fromName(levelMatcher.group(1));
+            lastLevelBySource.put(raw.source(), level);
+        } else {
+            // Continuation lines (stack traces, multi-line messages) keep the level of the line they belong to
+            level = lastLevelBySource.getOrDefault(raw.source(), Level.INFO);
+        }
+        Matcher categoryMatcher = CATEGORY.matcher(header);
+        String category = categoryMatcher.find() ? categoryMatcher.group(1) : raw.source().toLowerCase();
+        return new LogLine(raw.timestampMillis(), raw.source(), level, category, raw.text());
+    }
+
+    private boolean isExcluded(String category) {
+        for (String prefix : excludedCategories) {
+            if (category.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wait (briefly) until everything enqueued so far has been processed
+     */
+    private void flush() {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (processed.get() < target && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.medad.metrics;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.MemoryStatsConfig;
+import com.github.dockerjava.api.model.Statistics;
+import org.testcontainers.DockerClientFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One `docker stats --no-stream` reading of a container
+ * Responsibility: CPU and memory use as the Docker CLI reports them
+ *
+ * @param cpuPercent CPU use since the daemon's previous reading, 100 per fully used core
+ * @param memoryBytes Memory use without the page cache (cgroup v1 "cache"), like `docker stats`
+ */
+public record ContainerStats(double cpuPercent, long memoryBytes, long memoryLimitBytes) {
+
+    /**
+     * Read the container's stats; the daemon takes two readings about a second apart to compute CPU use
+     */
+    public static ContainerStats read(String containerId) {
+        LatestStatistics callback = DockerClientFactory.instance().client()
+                .statsCmd(containerId)
+                .withNoStream(true)
+                .exec(new LatestStatistics());
+        try {
+            if (!callback.awaitCompletion(15, TimeUnit.SECONDS) || callback.statistics == null) {
+                throw new IllegalStateException("No stats for container " + containerId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted reading stats of " + containerId, e);
+        }
+        return from(callback.statistics);
+    }
+
+    private static ContainerStats from(Statistics statistics) {
+        CpuStatsConfig cpu = statistics.getCpuStats();
+        CpuStatsConfig previousCpu = statistics.getPreCpuStats();
+        double cpuPercent = 0;
+        if (cpu != null && previousCpu != null && cpu.getSystemCpuUsage() != null
+                && previousCpu.getSystemCpuUsage() != null && previousCpu.getCpuUsage() != null) {
+            double cpuDelta = cpu.getCpuUsage().getTotalUsage() - previousCpu.getCpuUsage().getTotalUsage();
+            double systemDelta = cpu.getSystemCpuUsage() - previousCpu.getSystemCpuUsage();
+            long cpus = cpu.getOnlineCpus() != null ? cpu.getOnlineCpus() : 1;
+            if (systemDelta > 0) {
+                cpuPercent = cpuDelta / systemDelta * cpus * 100;
+            }
+        }
+        MemoryStatsConfig memory = statistics.getMemoryStats();
+        long usage = memory != null && memory.getUsage() != null ? memory.getUsage() : 0;
+        Long cache = memory != null && memory.getStats() != null ? memory.getStats().getCache() : null;
+        long limit = memory != null && memory.getLimit() != null ? memory.getLimit() : 0;
+        return new ContainerStats(cpuPercent, cache != null ? usage - cache : usage, limit);
+    }
+
+    private static class LatestStatistics extends ResultCallback.Adapter<Statistics> {
+        private volatile Statistics statistics;
+
+        @Override
+        public void onNext(Statistics statistics) {
+            this.statistics = statistics;
+        }
+    }
+}
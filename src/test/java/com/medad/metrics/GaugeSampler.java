@@ -0,0 +1,73 @@
+package com.medad.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Polls a gauge (e.g., a Keycloak metric) on a background thread while a scenario runs
+ * Responsibility: fixed-interval sampling with min/max over the sampled window
+ */
+public class GaugeSampler implements AutoCloseable {
+
+    private final String name;
+    private final DoubleSupplier gauge;
+    private final List<Double> values = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    public GaugeSampler(String name, DoubleSupplier gauge) {
+        this.name = name;
+        this.gauge = gauge;
+    }
+
+    /**
+     * Start sampling; failed reads are skipped so a slow endpoint does not abort the scenario
+     */
+    public GaugeSampler start(Duration interval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gauge-sampler-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                double value = gauge.getAsDouble();
+                synchronized (values) {
+                    values.add(value);
+                }
+            } catch (RuntimeException ignored) {
+                // keep sampling
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public List<Double> values() {
+        synchronized (values) {
+            return new ArrayList<>(values);
+        }
+    }
+
+    public double max() {
+        return values().stream().mapToDouble(Double::doubleValue).max().orElse(Double.NaN);
+    }
+
+    public double min() {
+        return values().stream().mapToDouble(Double::doubleValue).min().orElse(Double.NaN);
+    }
+
+    public String summary() {
+        return String.format("%-32s samples=%d min=%.0f max=%.0f", name, values().size(), min(), max());
+    }
+}
@@ -0,0 +1,137 @@
+package com.medad.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Collects latency samples for one named operation and reports percentiles
+ * Responsibility: thread-safe sample collection and summary formatting for benchmarks
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private final List<Long> samplesNanos = new ArrayList<>();
+    private long errors;
+    private long firstStartNanos = Long.MAX_VALUE;
+    private long lastEndNanos = Long.MIN_VALUE;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Time an operation and return its result; a thrown exception is counted as an error and rethrown
+     */
+    public <T> T call(Callable<T> operation) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = operation.call();
+            record(start, System.nanoTime());
+            return result;
+        } catch (Exception e) {
+            recordError(start, System.nanoTime());
+            throw e;
+        }
+    }
+
+    /**
+     * Time an operation that does not return a value
+     */
+    public void time(Runnable operation) {
+        long start = System.nanoTime();
+        try {
+            operation.run();
+            record(start, System.nanoTime());
+        } catch (RuntimeException e) {
+            recordError(start, System.nanoTime());
+            throw e;
+        }
+    }
+
+    /**
+     * Record a successful sample from System.nanoTime() start/end values
+     */
+    public synchronized void record(long startNanos, long endNanos) {
+        samplesNanos.add(endNanos - startNanos);
+        window(startNanos, endNanos);
+    }
+
+    /**
+     * Record a failed operation; failures count towards the error rate but not the percentiles
+     */
+    public synchronized void recordError(long startNanos, long endNanos) {
+        errors++;
+        window(startNanos, endNanos);
+    }
+
+    private void window(long startNanos, long endNanos) {
+        firstStartNanos = Math.min(firstStartNanos, startNanos);
+        lastEndNanos = Math.max(lastEndNanos, endNanos);
+    }
+
+    public synchronized int count() {
+        return samplesNanos.size();
+    }
+
+    public synchronized long errors() {
+        return errors;
+    }
+
+    /**
+     * Percentile using the nearest-rank method
+     * @param percentile 0-100
+     */
+    public synchronized Duration percentile(double percentile) {
+        if (samplesNanos.isEmpty()) {
+            return Duration.ZERO;
+        }
+        List<Long> sorted = new ArrayList<>(samplesNanos);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return Duration.ofNanos(sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1))));
+    }
+
+    public synchronized Duration mean() {
+        if (samplesNanos.isEmpty()) {
+            return Duration.ZERO;
+        }
+        long total = 0;
+        for (long sample : samplesNanos) {
+            total += sample;
+        }
+        return Duration.ofNanos(total / samplesNanos.size());
+    }
+
+    /**
+     * Completed operations (successes and errors) per second over the wall-clock window they covered
+     */
+    public synchronized double throughputPerSecond() {
+        long total = samplesNanos.size() + errors;
+        if (total == 0 || lastEndNanos <= firstStartNanos) {
+            return 0;
+        }
+        return total / ((lastEndNanos - firstStartNanos) / 1_000_000_000.0);
+    }
+
+    public synchronized double errorRate() {
+        long total = samplesNanos.size() + errors;
+        return total == 0 ? 0 : (double) errors / total;
+    }
+
+    /**
+     * One-line summary, e.g. for logs and Allure attachments
+     */
+    public String summary() {
+        return String.format("%-32s n=%-6d err=%-5d (%.1f%%) mean=%6dms p50=%6dms p95=%6dms p99=%6dms max=%6dms thr=%.2f/s",
+                name, count(), errors(), errorRate() * 100,
+                mean().toMillis(), percentile(50).toMillis(), percentile(95).toMillis(),
+                percentile(99).toMillis(), percentile(100).toMillis(), throughputPerSecond());
+    }
+}
@@ -0,0 +1,202 @@
+package com.medad.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Difference between two scrapes of Keycloak's management /metrics, e.g. before and after a test or load phase
+ * Responsibility: counter deltas and histogram percentiles for HTTP server requests, the database pool (Agroal),
+ * Infinispan caches and JVM GC, as a text report
+ *
+ * Counters that went down between the scrapes were reset (node restart), so the later value is the delta.
+ * Percentiles need KC_HTTP_METRICS_HISTOGRAMS_ENABLED; without buckets only the mean is reported.
+ */
+public class MetricsDiff {
+
+    private static final String HTTP_REQUESTS = "http_server_requests_seconds";
+    private static final List<String> HTTP_LABELS = List.of("method", "uri", "status");
+    private static final String AGROAL_PREFIX = "agroal_";
+    private static final String CACHE_HITS = "vendor_statistics_hits";
+    private static final String CACHE_MISSES = "vendor_statistics_misses";
+    private static final List<String> GC_COUNTERS = List.of(
+            "jvm_gc_memory_allocated_bytes_total", "jvm_gc_memory_promoted_bytes_total");
+
+    /**
+     * Requests to one endpoint between the scrapes
+     * @param p50Ms NaN without histogram buckets
+     */
+    public record HttpEndpoint(String method, String uri, String status, long count, double meanMs,
+                               double p50Ms, double p95Ms, double p99Ms) {}
+
+    private final PrometheusMetrics before;
+    private final PrometheusMetrics after;
+
+    private MetricsDiff(PrometheusMetrics before, PrometheusMetrics after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static MetricsDiff between(PrometheusMetrics before, PrometheusMetrics after) {
+        return new MetricsDiff(before, after);
+    }
+
+    /**
+     * Counter delta of one metric summed per combination of the given labels, zero deltas included so
+     * cumulative histogram buckets keep their lower bounds; reports skip the series that did not move
+     */
+    public Map<List<String>, Double> delta(String name, List<String> groupBy) {
+        Map<List<String>, Double> previous = group(before, name, groupBy);
+        Map<List<String>, Double> deltas = new TreeMap<>(MetricsDiff::compareKeys);
+        group(after, name, groupBy).forEach((key, value) -> {
+            double start = previous.getOrDefault(key, 0.0);
+            deltas.put(key, value >= start ? value - start : value);
+        });
+        return deltas;
+    }
+
+    public double delta(String name) {
+        return delta(name, List.of()).getOrDefault(List.of(), 0.0);
+    }
+
+    /**
+     * HTTP server requests per method, URI template and status, busiest first
+     */
+    public List<HttpEndpoint> httpEndpoints() {
+        Map<List<String>, Double> counts = delta(HTTP_REQUESTS + "_count", HTTP_LABELS);
+        Map<List<String>, Double> sums = delta(HTTP_REQUESTS + "_sum", HTTP_LABELS);
+        List<String> bucketLabels = new ArrayList<>(HTTP_LABELS);
+        bucketLabels.add("le");
+        Map<List<String>, Map<Double, Double>> buckets = new HashMap<>();
+        delta(HTTP_REQUESTS + "_bucket", bucketLabels).forEach((key, value) -> buckets
+                .computeIfAbsent(key.subList(0, HTTP_LABELS.size()), endpoint -> new TreeMap<>())
+                .put(parseBound(key.getLast()), value));
+
+        List<HttpEndpoint> endpoints = new ArrayList<>();
+        counts.forEach((key, count) -> {
+            if (count <= 0) {
+                return;
+            }
+            Map<Double, Double> histogram = buckets.getOrDefault(key, Map.of());
+            endpoints.add(new HttpEndpoint(key.get(0), key.get(1), key.get(2), Math.round(count),
+                    sums.getOrDefault(key, 0.0) / count * 1000,
+                    quantile(histogram, 0.50) * 1000, quantile(histogram, 0.95) * 1000,
+                    quantile(histogram, 0.99) * 1000));
+        });
+        endpoints.sort((a, b) -> Long.compare(b.count(), a.count()));
+        return endpoints;
+    }
+
+    /**
+     * Quantile of a cumulative histogram (upper bound -> count), interpolated within the bucket like
+     * Prometheus' histogram_quantile; NaN for an empty histogram
+     */
+    static double quantile(Map<Double, Double> cumulative, double q) {
+        if (cumulative.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Map.Entry<Double, Double>> buckets = new ArrayList<>(new TreeMap<>(cumulative).entrySet());
+        double total = buckets.getLast().getValue();
+        if (total <= 0) {
+            return Double.NaN;
+        }
+        double rank = q * total;
+        double lowerBound = 0;
+        double lowerCount = 0;
+        for (Map.Entry<Double, Double> bucket : buckets) {
+            if (bucket.getValue() >= rank) {
+                if (bucket.getKey().isInfinite()) {
+                    return lowerBound;
+                }
+                double inBucket = bucket.getValue() - lowerCount;
+                return inBucket <= 0 ? bucket.getKey()
+                        : lowerBound + (bucket.getKey() - lowerBound) * (rank - lowerCount) / inBucket;
+            }
+            lowerBound = bucket.getKey();
+            lowerCount = bucket.getValue();
+        }
+        return lowerBound;
+    }
+
+    public String describe() {
+        StringBuilder report = new StringBuilder();
+        List<HttpEndpoint> endpoints = httpEndpoints();
+        report.append("HTTP server requests (").append(endpoints.stream().mapToLong(HttpEndpoint::count).sum())
+                .append(")\n");
+        report.append(String.format(Locale.ROOT, "  %-7s %-60s %-6s %8s %9s %9s %9s %9s%n",
+                "method", "uri", "status", "count", "mean ms", "p50 ms", "p95 ms", "p99 ms"));
+        for (HttpEndpoint endpoint : endpoints) {
+            report.append(String.format(Locale.ROOT, "  %-7s %-60s %-6s %8d %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint.method(), endpoint.uri(), endpoint.status(), endpoint.count(), endpoint.meanMs(),
+                    endpoint.p50Ms(), endpoint.p95Ms(), endpoint.p99Ms()));
+        }
+
+        report.append("\nDatabase connection pool (before -> after, delta for counters)\n");
+        for (String name : names(AGROAL_PREFIX)) {
+            if (name.endsWith("_total")) {
+                report.append(String.format(Locale.ROOT, "  %-50s %+12.0f%n", name, delta(name)));
+            } else {
+                report.append(String.format(Locale.ROOT, "  %-50s %12.0f -> %.0f%n",
+                        name, before.sum(name), after.sum(name)));
+            }
+        }
+
+        report.append("\nCaches (hits / misses / hit ratio)\n");
+        Map<List<String>, Double> hits = delta(CACHE_HITS, List.of("cache"));
+        Map<List<String>, Double> misses = delta(CACHE_MISSES, List.of("cache"));
+        Map<List<String>, Double> caches = new TreeMap<>(MetricsDiff::compareKeys);
+        caches.putAll(misses);
+        caches.putAll(hits);
+        caches.keySet().forEach(cache -> {
+            double hit = hits.getOrDefault(cache, 0.0);
+            double miss = misses.getOrDefault(cache, 0.0);
+            if (hit + miss <= 0) {
+                return;
+            }
+            report.append(String.format(Locale.ROOT, "  %-40s %10.0f %10.0f %7.1f%%%n",
+                    cache.getFirst(), hit, miss, hit / (hit + miss) * 100));
+        });
+
+        report.append("\nJVM GC\n");
+        Map<List<String>, Double> pauseSeconds = delta("jvm_gc_pause_seconds_sum", List.of("gc", "action"));
+        delta("jvm_gc_pause_seconds_count", List.of("gc", "action")).forEach((key, pauses) -> {
+            if (pauses > 0) {
+                report.append(String.format(Locale.ROOT, "  %-50s %6.0f pauses %9.1f ms%n",
+                        String.join(" / ", key), pauses, pauseSeconds.getOrDefault(key, 0.0) * 1000));
+            }
+        });
+        for (String name : GC_COUNTERS) {
+            report.append(String.format(Locale.ROOT, "  %-50s %9.1f MB%n", name, delta(name) / (1024 * 1024)));
+        }
+        return report.toString();
+    }
+
+    private List<String> names(String prefix) {
+        return after.getSamples().stream()
+                .map(PrometheusMetrics.Sample::name)
+                .filter(name -> name.startsWith(prefix))
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static Map<List<String>, Double> group(PrometheusMetrics metrics, String name, List<String> groupBy) {
+        Map<List<String>, Double> grouped = new HashMap<>();
+        for (PrometheusMetrics.Sample sample : metrics.samples(name)) {
+            List<String> key = groupBy.stream().map(label -> sample.labels().getOrDefault(label, "")).toList();
+            grouped.merge(key, sample.value(), Double::sum);
+        }
+        return grouped;
+    }
+
+    private static double parseBound(String le) {
+        return "+Inf".equals(le) ? Double.POSITIVE_INFINITY : Double.parseDouble(le);
+    }
+
+    private static int compareKeys(List<String> a, List<String> b) {
+        return String.join("\u0000", a).compareTo(String.join("\u0000", b));
+    }
+}
@@ -0,0 +1,104 @@
+package com.medad.metrics;
+
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MetricsDiff on two scrapes in Keycloak's /metrics format (no containers).
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+public class MetricsDiffTest {
+
+    private static final String BEFORE = """
+            # TYPE http_server_requests_seconds histogram
+            http_server_requests_seconds_bucket{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200",le="0.1"} 10
+            http_server_requests_seconds_bucket{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200",le="0.2"} 10
+            http_server_requests_seconds_bucket{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200",le="+Inf"} 10
+            http_server_requests_seconds_count{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200"} 10
+            http_server_requests_seconds_sum{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200"} 0.5
+            vendor_statistics_hits{cache="realms"} 100
+            vendor_statistics_misses{cache="realms"} 10
+            """;
+
+    private static final String AFTER = """
+            http_server_requests_seconds_bucket{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200",le="0.1"} 60
+            http_server_requests_seconds_bucket{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200",le="0.2"} 110
+            http_server_requests_seconds_bucket{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200",le="+Inf"} 110
+            http_server_requests_seconds_count{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200"} 110
+            http_server_requests_seconds_sum{method="GET",uri="/realms/{realm}/protocol/{protocol}/auth",status="200"} 15.5
+            vendor_statistics_hits{cache="realms"} 190
+            vendor_statistics_misses{cache="realms"} 20
+            """;
+
+    @Test
+    @DisplayName("HTTP requests between two scrapes get count, mean and interpolated percentiles")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Keycloak metrics")
+    public void testHttpEndpointDelta() {
+        MetricsDiff diff = MetricsDiff.between(PrometheusMetrics.parse(BEFORE), PrometheusMetrics.parse(AFTER));
+
+        List<MetricsDiff.HttpEndpoint> endpoints = diff.httpEndpoints();
+
+        assertEquals(1, endpoints.size());
+        MetricsDiff.HttpEndpoint auth = endpoints.getFirst();
+        assertEquals(100, auth.count());
+        assertEquals(150.0, auth.meanMs(), 0.001);
+        // 50 requests up to 100 ms and 50 between 100 and 200 ms
+        assertEquals(100.0, auth.p50Ms(), 0.001);
+        assertEquals(190.0, auth.p95Ms(), 0.001);
+        assertEquals(90.0, diff.delta("vendor_statistics_hits"), 0.001);
+        assertTrue(diff.describe().contains("realms"), "Cache rows should be reported");
+    }
+
+    @Test
+    @DisplayName("Buckets that did not move keep their bounds, so percentiles interpolate from them")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Keycloak metrics")
+    public void testZeroDeltaBucket() {
+        String uri = "method=\"POST\",uri=\"/realms/{realm}/protocol/{protocol}/token\",status=\"200\"";
+        String idle = "method=\"GET\",uri=\"/realms/{realm}/account\",status=\"200\"";
+        MetricsDiff diff = MetricsDiff.between(PrometheusMetrics.parse(String.join("\n",
+                "http_server_requests_seconds_bucket{" + uri + ",le=\"0.1\"} 0",
+                "http_server_requests_seconds_bucket{" + uri + ",le=\"0.2\"} 0",
+                "http_server_requests_seconds_bucket{" + uri + ",le=\"+Inf\"} 0",
+                "http_server_requests_seconds_count{" + uri + "} 0",
+                "http_server_requests_seconds_sum{" + uri + "} 0",
+                "http_server_requests_seconds_count{" + idle + "} 5",
+                "http_server_requests_seconds_sum{" + idle + "} 1",
+                "")), PrometheusMetrics.parse(String.join("\n",
+                "http_server_requests_seconds_bucket{" + uri + ",le=\"0.1\"} 0",
+                "http_server_requests_seconds_bucket{" + uri + ",le=\"0.2\"} 100",
+                "http_server_requests_seconds_bucket{" + uri + ",le=\"+Inf\"} 100",
+                "http_server_requests_seconds_count{" + uri + "} 100",
+                "http_server_requests_seconds_sum{" + uri + "} 15",
+                "http_server_requests_seconds_count{" + idle + "} 5",
+                "http_server_requests_seconds_sum{" + idle + "} 1",
+                "")));
+
+        List<MetricsDiff.HttpEndpoint> endpoints = diff.httpEndpoints();
+
+        assertEquals(1, endpoints.size(), "Endpoints without requests between the scrapes are not reported");
+        // 100 requests between 100 and 200 ms: the empty 100 ms bucket is the lower bound, not 0
+        assertEquals(150.0, endpoints.getFirst().p50Ms(), 0.001);
+        assertEquals(195.0, endpoints.getFirst().p95Ms(), 0.001);
+    }
+
+    @Test
+    @DisplayName("A counter that went down was reset, so its later value is the delta")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Keycloak metrics")
+    public void testCounterReset() {
+        MetricsDiff diff = MetricsDiff.between(
+                PrometheusMetrics.parse("jvm_gc_memory_allocated_bytes_total 5000\n"),
+                PrometheusMetrics.parse("jvm_gc_memory_allocated_bytes_total 1200\n"));
+
+        assertEquals(1200.0, diff.delta("jvm_gc_memory_allocated_bytes_total"), 0.001);
+    }
+}
@@ -0,0 +1,199 @@
+package com.medad.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One scrape of a Prometheus text-format endpoint (e.g., Keycloak's management /metrics)
+ * Responsibility: parse samples and look them up by name and labels
+ */
+public class PrometheusMetrics {
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * A single sample line: name{labels} value
+     */
+    public record Sample(String name, Map<String, String> labels, double value) {
+    }
+
+    private final List<Sample> samples;
+    private final long scrapedAtMillis;
+
+    private PrometheusMetrics(List<Sample> samples, long scrapedAtMillis) {
+        this.samples = samples;
+        this.scrapedAtMillis = scrapedAtMillis;
+    }
+
+    /**
+     * Scrape a metrics endpoint
+     * @param metricsUrl Full URL, e.g. http://localhost:32771/metrics
+     */
+    public static PrometheusMetrics scrape(String metricsUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(metricsUrl))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Failed to scrape metrics: " + response.statusCode() + " - " + metricsUrl);
+            }
+            return parse(response.body());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scrape metrics from " + metricsUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while scraping " + metricsUrl, e);
+        }
+    }
+
+    /**
+     * Parse Prometheus text exposition format; comments and malformed lines are skipped
+     */
+    public static PrometheusMetrics parse(String body) {
+        List<Sample> samples = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Sample sample = parseLine(line);
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return new PrometheusMetrics(samples, System.currentTimeMillis());
+    }
+
+    private static Sample parseLine(String line) {
+        String name;
+        Map<String, String> labels = new LinkedHashMap<>();
+        String rest;
+
+        int brace = line.indexOf('{');
+        int space = line.indexOf(' ');
+        if (brace >= 0 && (space < 0 || brace < space)) {
+            int close = line.lastIndexOf('}');
+            if (close < brace) {
+                return null;
+            }
+            name = line.substring(0, brace);
+            parseLabels(line.substring(brace + 1, close), labels);
+            rest = line.substring(close + 1).trim();
+        } else if (space > 0) {
+            name = line.substring(0, space);
+            rest = line.substring(space + 1).trim();
+        } else {
+            return null;
+        }
+
+        // Value may be followed by an optional timestamp
+        String valueText = rest.split("\\s+")[0];
+        try {
+            return new Sample(name, Collections.unmodifiableMap(labels), parseValue(valueText));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void parseLabels(String text, Map<String, String> labels) {
+        int i = 0;
+        while (i < text.length()) {
+            int equals = text.indexOf('=', i);
+            if (equals < 0) {
+                return;
+            }
+            String key = text.substring(i, equals).trim();
+            int quote = text.indexOf('"', equals);
+            StringBuilder value = new StringBuilder();
+            int j = quote + 1;
+            while (j < text.length() && text.charAt(j) != '"') {
+                char c = text.charAt(j);
+                if (c == '\\' && j + 1 < text.length()) {
+                    char next = text.charAt(++j);
+                    value.append(next == 'n' ? '\n' : next);
+                } else {
+                    value.append(c);
+                }
+                j++;
+            }
+            labels.put(key, value.toString());
+            int comma = text.indexOf(',', j);
+            if (comma < 0) {
+                return;
+            }
+            i = comma + 1;
+        }
+    }
+
+    private static double parseValue(String text) {
+        switch (text) {
+            case "+Inf":
+                return Double.POSITIVE_INFINITY;
+            case "-Inf":
+                return Double.NEGATIVE_INFINITY;
+            case "NaN":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(text);
+        }
+    }
+
+    /**
+     * Samples of several scrapes in one view, e.g. every node of a cluster; sums then cover all of them
+     */
+    public static PrometheusMetrics combine(List<PrometheusMetrics> scrapes) {
+        List<Sample> samples = new ArrayList<>();
+        long scrapedAtMillis = 0;
+        for (PrometheusMetrics scrape : scrapes) {
+            samples.addAll(scrape.samples);
+            scrapedAtMillis = Math.max(scrapedAtMillis, scrape.scrapedAtMillis);
+        }
+        return new PrometheusMetrics(samples, scrapedAtMillis);
+    }
+
+    public List<Sample> getSamples() {
+        return samples;
+    }
+
+    public long getScrapedAtMillis() {
+        return scrapedAtMillis;
+    }
+
+    /**
+     * All samples with the given name
+     */
+    public List<Sample> samples(String name) {
+        List<Sample> matches = new ArrayList<>();
+        for (Sample sample : samples) {
+            if (sample.name().equals(name)) {
+                matches.add(sample);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Sum of all samples with the given name (across every label combination)
+     */
+    public double sum(String name) {
+        double total = 0;
+        for (Sample sample : samples(name)) {
+            total += sample.value();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,187 @@
+package com.medad.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Samples resource series (container CPU/memory, JVM heap, GC, threads, sessions) during a long run
+ * Responsibility: fixed-interval sampling of several named series on a background thread, and a
+ * least-squares trend per series that flags steady growth such as a leak or session buildup
+ *
+ * A source returns several named readings at once, so one metrics scrape feeds several series.
+ * Series registered with counter() are stored as their per-second rate between samples.
+ */
+public class ResourceTrendMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceTrendMonitor.class);
+
+    /**
+     * @param seconds Time since monitoring started
+     */
+    public record Point(double seconds, double value) {}
+
+    /**
+     * Straight-line fit of one series
+     *
+     * @param slopePerHour Fitted change per hour
+     * @param relativeChange Fitted change over the analysed window relative to the series mean (0.1 = +10%)
+     * @param rSquared How well the line explains the samples; low for noise and sawtooth patterns
+     * @param rising True if the series grew by more than the threshold with a convincing fit
+     */
+    public record Trend(String name, int points, double first, double last, double slopePerHour,
+                        double relativeChange, double rSquared, boolean rising) {
+
+        /**
+         * @param threshold Relative change over the window that counts as growth
+         * @param minRSquared Fit quality below which growth is treated as noise
+         */
+        public static Trend fit(String name, List<Point> points, double threshold, double minRSquared) {
+            int n = points.size();
+            if (n < 2) {
+                double value = n == 1 ? points.getFirst().value() : Double.NaN;
+                return new Trend(name, n, value, value, 0, 0, 0, false);
+            }
+            double meanX = points.stream().mapToDouble(Point::seconds).average().orElse(0);
+            double meanY = points.stream().mapToDouble(Point::value).average().orElse(0);
+            double sxy = 0;
+            double sxx = 0;
+            double syy = 0;
+            for (Point point : points) {
+                double dx = point.seconds() - meanX;
+                double dy = point.value() - meanY;
+                sxy += dx * dy;
+                sxx += dx * dx;
+                syy += dy * dy;
+            }
+            double slope = sxx == 0 ? 0 : sxy / sxx;
+            double rSquared = sxx == 0 || syy == 0 ? 0 : (sxy * sxy) / (sxx * syy);
+            double window = points.getLast().seconds() - points.getFirst().seconds();
+            double relativeChange = meanY == 0 ? 0 : slope * window / Math.abs(meanY);
+            boolean rising = n >= 5 && relativeChange > threshold && rSquared >= minRSquared;
+            return new Trend(name, n, points.getFirst().value(), points.getLast().value(), slope * 3600,
+                    relativeChange, rSquared, rising);
+        }
+
+        public String row() {
+            return String.format(Locale.ROOT, "%-36s n=%-5d first=%12.2f last=%12.2f slope=%+12.2f/h change=%+7.1f%% r2=%.2f%s",
+                    name, points, first, last, slopePerHour, relativeChange * 100, rSquared, rising ? "  ⚠ RISING" : "");
+        }
+    }
+
+    private final List<Supplier<Map<String, Double>>> sources = new ArrayList<>();
+    private final Set<String> counters = new HashSet<>();
+    private final Map<String, List<Point>> series = new LinkedHashMap<>();
+    private final Map<String, Point> lastCounterReadings = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    private long startNanos;
+
+    /**
+     * Add a source of named readings; a source that throws is skipped for that sample
+     */
+    public ResourceTrendMonitor source(Supplier<Map<String, Double>> source) {
+        sources.add(source);
+        return this;
+    }
+
+    /**
+     * Store this reading as a per-second rate (e.g., GC pause seconds per second) instead of its running total
+     */
+    public ResourceTrendMonitor counter(String name) {
+        counters.add(name);
+        return this;
+    }
+
+    public ResourceTrendMonitor start(Duration interval) {
+        startNanos = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "resource-trend-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void sample() {
+        for (Supplier<Map<String, Double>> source : sources) {
+            Map<String, Double> readings;
+            try {
+                readings = source.get();
+            } catch (RuntimeException e) {
+                logger.debug("Resource sample skipped", e);
+                continue;
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            synchronized (series) {
+                readings.forEach((name, value) -> record(name, new Point(seconds, value)));
+            }
+        }
+    }
+
+    private void record(String name, Point reading) {
+        if (counters.contains(name)) {
+            Point previous = lastCounterReadings.put(name, reading);
+            if (previous == null || reading.seconds() <= previous.seconds()) {
+                return;
+            }
+            // A counter that went down was reset (restart); skip the interval
+            if (reading.value() < previous.value()) {
+                return;
+            }
+            reading = new Point(reading.seconds(),
+                    (reading.value() - previous.value()) / (reading.seconds() - previous.seconds()));
+        }
+        series.computeIfAbsent(name, key -> new ArrayList<>()).add(reading);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public Map<String, List<Point>> series() {
+        synchronized (series) {
+            Map<String, List<Point>> copy = new LinkedHashMap<>();
+            series.forEach((name, points) -> copy.put(name, List.copyOf(points)));
+            return copy;
+        }
+    }
+
+    /**
+     * Fit every series, ignoring its first samples while the system warms up
+     * @param skip Time at the start of the run left out of the fit
+     */
+    public List<Trend> trends(Duration skip, double threshold, double minRSquared) {
+        double skipSeconds = skip.toNanos() / 1_000_000_000.0;
+        List<Trend> trends = new ArrayList<>();
+        series().forEach((name, points) -> trends.add(Trend.fit(name,
+                points.stream().filter(point -> point.seconds() >= skipSeconds).toList(), threshold, minRSquared)));
+        return trends;
+    }
+
+    /**
+     * All samples as CSV (series, seconds, value), e.g. for plotting
+     */
+    public String csv() {
+        StringBuilder csv = new StringBuilder("series,seconds,value\n");
+        series().forEach((name, points) -> points.forEach(point -> csv.append(String.format(Locale.ROOT,
+                "\"%s\",%.1f,%.4f%n", name, point.seconds(), point.value()))));
+        return csv.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.medad.metrics;
+
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ResourceTrendMonitor.Trend on synthetic series (no containers).
+ */
+@Epic("Medad Identity")
+@Feature("Performance")
+public class ResourceTrendMonitorTest {
+
+    @Test
+    @DisplayName("A steadily growing series is flagged as rising")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Soak")
+    public void testLinearGrowthIsRising() {
+        List<ResourceTrendMonitor.Point> points = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            points.add(new ResourceTrendMonitor.Point(i * 30, 500 + i * 5 + (i % 2 == 0 ? 2 : -2)));
+        }
+
+        ResourceTrendMonitor.Trend trend = ResourceTrendMonitor.Trend.fit("heap", points, 0.10, 0.5);
+
+        assertTrue(trend.rising(), trend.row());
+    }
+
+    @Test
+    @DisplayName("A flat sawtooth series (GC cycles) is not flagged")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Soak")
+    public void testSawtoothIsNotRising() {
+        List<ResourceTrendMonitor.Point> points = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            points.add(new ResourceTrendMonitor.Point(i * 30, 400 + (i % 4) * 100));
+        }
+
+        ResourceTrendMonitor.Trend trend = ResourceTrendMonitor.Trend.fit("heap", points, 0.10, 0.5);
+
+        assertFalse(trend.rising(), trend.row());
+    }
+}
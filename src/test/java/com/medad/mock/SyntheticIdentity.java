@@ -0,0 +1,82 @@
+package com.medad.mock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * UAE Pass identity returned by the stateful mocks for a login_hint
+ * Must stay in line with uaepass-stateful/__files/userinfo-response.json, which derives idn and mobile the same way
+ *
+ * @param loginHint Value sent as login_hint; also the UAE Pass uuid/sub of the identity
+ */
+public record SyntheticIdentity(String loginHint, String uuid, String email, String firstName, String lastName,
+                                String mobile, String idn) {
+
+    /**
+     * Identity returned when no login_hint is sent (same as the fixed mock's userinfo-response.json)
+     */
+    public static final SyntheticIdentity DEFAULT = new SyntheticIdentity(null,
+            "ca33aa7b-0c2f-4e8e-9b22-2eafe1f9234c", "john_doe@gmail.com", "John", "Doe",
+            "+971501234567", "79869686886868969");
+
+    private static final Pattern SUPPORTED_HINT = Pattern.compile("[a-z0-9._-]+");
+    // Characters of a hint besides digits, encoded as '9' followed by their index + 10
+    private static final String ENCODED_CHARACTERS = "abcdefghijklmnopqrstuvwxyz._-";
+
+    /**
+     * @param loginHint Lowercase letters, digits, '.', '_' or '-' (e.g., "load-user-42"); Keycloak lowercases
+     *                  usernames, so the hint doubles as the username
+     */
+    public static SyntheticIdentity of(String loginHint) {
+        if (loginHint == null || !SUPPORTED_HINT.matcher(loginHint).matches()) {
+            throw new IllegalArgumentException("Unsupported login hint: " + loginHint);
+        }
+        String digits = digits(loginHint);
+        return new SyntheticIdentity(loginHint, loginHint, loginHint + "@uaepass.test", "UAE Pass", loginHint,
+                "+9715" + digits, "784" + digits);
+    }
+
+    /**
+     * Digits that identify the hint: digits stay, '9' becomes "99" and any other character "9" + its index + 10
+     * (a = 910, - = 938). Distinct hints give distinct digits, so idn and mobile are unique per identity.
+     */
+    static String digits(String loginHint) {
+        StringBuilder digits = new StringBuilder();
+        for (char c : loginHint.toCharArray()) {
+            if (c == '9') {
+                digits.append("99");
+            } else if (c >= '0' && c <= '8') {
+                digits.append(c);
+            } else {
+                digits.append('9').append(ENCODED_CHARACTERS.indexOf(c) + 10);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Identity for an optional login_hint; blank, missing or unsupported hints (see {@link #of}) give {@link #DEFAULT}
+     */
+    public static SyntheticIdentity forHint(String loginHint) {
+        return loginHint == null || !SUPPORTED_HINT.matcher(loginHint).matches() ? DEFAULT : of(loginHint);
+    }
+
+    /**
+     * UAE Pass userinfo claims for this identity
+     */
+    public Map<String, String> userInfoClaims() {
+        Map<String, String> claims = new LinkedHashMap<>();
+        claims.put("sub", uuid);
+        claims.put("gender", "Unknown");
+        claims.put("firstnameEN", firstName);
+        claims.put("mobile", mobile);
+        claims.put("lastnameEN", lastName);
+        claims.put("fullnameEN", firstName + " " + lastName);
+        claims.put("userType", "SOP1");
+        claims.put("idn", idn);
+        claims.put("uuid", uuid);
+        claims.put("email", email);
+        return claims;
+    }
+}
@@ -0,0 +1,56 @@
+package com.medad.mock;
+
+import com.medad.logging.ContainerLogPipeline;
+import org.testcontainers.containers.BindMode;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.MountableFile;
+import org.wiremock.integrations.testcontainers.WireMockContainer;
+
+/**
+ * WireMock container serving the UAE Pass mappings of a mock mode, tuned by a mock profile
+ * Responsibility: mount the mode's mappings, add the state extension for the stateful mode and apply the
+ * profile's WireMock options; the caller decides the network
+ */
+public class UaePassMockContainer extends WireMockContainer {
+
+    /**
+     * Base path of the UAE Pass endpoints in the mappings
+     */
+    public static final String BASE_PATH = "/idshub";
+
+    /**
+     * @param mode Any mode but {@link UaePassMockMode#IN_JVM}, which has no container
+     */
+    public UaePassMockContainer(UaePassMockMode mode, UaePassMockProfile profile) {
+        super("wiremock/wiremock:3.13.1");
+        if (mode.runsInJvm()) {
+            throw new IllegalArgumentException("UAEPASS_MOCK_MODE=in-jvm runs without a container");
+        }
+        String options = profile.wireMockOptions();
+        if (mode.needsStateExtension()) {
+            options += " --extensions " + UaePassMockMode.STATE_EXTENSION_CLASS;
+        }
+        withExposedPorts(8080);
+        withEnv("WIREMOCK_OPTIONS", options.trim());
+        withClasspathResourceMapping(mode.getResourceDirectory(), "/home/wiremock", BindMode.READ_ONLY);
+        waitingFor(Wait.forHttp("/__admin/mappings"));
+        if (mode.needsStateExtension()) {
+            if (!UaePassMockMode.STATE_EXTENSION_JAR.toFile().isFile()) {
+                throw new IllegalStateException("UAEPASS_MOCK_MODE=stateful needs "
+                        + UaePassMockMode.STATE_EXTENSION_JAR + "; run 'mvn generate-test-resources' first");
+            }
+            withCopyFileToContainer(MountableFile.forHostPath(UaePassMockMode.STATE_EXTENSION_JAR),
+                    "/var/wiremock/extensions/" + UaePassMockMode.STATE_EXTENSION_JAR.getFileName());
+        }
+        if (profile.forwardsLogs()) {
+            withLogConsumer(ContainerLogPipeline.consumer("UAEPASS-WIREMOCK"));
+        }
+    }
+
+    /**
+     * Base URL of the UAE Pass endpoints as seen from the test JVM and the browser
+     */
+    public String getBaseUrl() {
+        return getUrl(BASE_PATH);
+    }
+}
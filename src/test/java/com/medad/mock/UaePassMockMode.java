@@ -0,0 +1,66 @@
+package com.medad.mock;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Which set of UAE Pass WireMock mappings is served
+ */
+public enum UaePassMockMode {
+
+    /**
+     * One fixed authorization code and access token; only one login may be in flight at a time
+     */
+    FIXED("uaepass"),
+
+    /**
+     * A code per authorize request and a token per code, each mapped to the identity chosen with login_hint.
+     * Backed by the WireMock state extension so concurrent logins do not share state.
+     */
+    STATEFUL("uaepass-stateful"),
+
+    /**
+     * {@link UaePassStubServer} inside the test JVM instead of a WireMock container; same per-login
+     * behaviour as {@link #STATEFUL}
+     */
+    IN_JVM(null);
+
+    /**
+     * Copied by maven-dependency-plugin during generate-test-resources
+     */
+    public static final Path STATE_EXTENSION_JAR =
+            Path.of("target", "wiremock-extensions", "wiremock-state-extension-standalone.jar");
+    public static final String STATE_EXTENSION_CLASS = "org.wiremock.extensions.state.StateExtension";
+
+    private final String resourceDirectory;
+
+    UaePassMockMode(String resourceDirectory) {
+        this.resourceDirectory = resourceDirectory;
+    }
+
+    public static UaePassMockMode fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    /**
+     * Classpath directory holding the mappings and __files for this mode; null for {@link #IN_JVM}
+     */
+    public String getResourceDirectory() {
+        return resourceDirectory;
+    }
+
+    public boolean needsStateExtension() {
+        return this == STATEFUL;
+    }
+
+    public boolean runsInJvm() {
+        return this == IN_JVM;
+    }
+
+    /**
+     * Whether every login gets its own code and token (as opposed to the fixed pair)
+     */
+    public boolean issuesCodePerLogin() {
+        return this != FIXED;
+    }
+}
@@ -0,0 +1,47 @@
+package com.medad.mock;
+
+import com.medad.config.EnvironmentConfig;
+
+import java.util.Locale;
+
+/**
+ * How the UAE Pass WireMock container is tuned
+ */
+public enum UaePassMockProfile {
+
+    /**
+     * Full request logging for debugging functional tests
+     */
+    FUNCTIONAL,
+
+    /**
+     * No request journal or request logging, a larger Jetty pool and async responses, for Keycloak load tests
+     */
+    LOAD;
+
+    public static UaePassMockProfile fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * WIREMOCK_OPTIONS for this profile; templating is enabled per mapping, so it is never global
+     */
+    public String wireMockOptions() {
+        if (this == FUNCTIONAL) {
+            return "--verbose";
+        }
+        return String.join(" ",
+                "--no-request-journal",
+                "--disable-request-logging",
+                "--container-threads", String.valueOf(EnvironmentConfig.getInt("UAEPASS_MOCK_CONTAINER_THREADS", 200)),
+                "--async-response-enabled", "true",
+                "--async-response-threads", String.valueOf(EnvironmentConfig.getInt("UAEPASS_MOCK_ASYNC_THREADS", 50)));
+    }
+
+    /**
+     * Whether the container output should be forwarded to the test log
+     */
+    public boolean forwardsLogs() {
+        return this == FUNCTIONAL;
+    }
+}
@@ -0,0 +1,294 @@
+package com.medad.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-process UAE Pass stub on the JDK HTTP server, one virtual thread per request
+ * Responsibility: authorize/token/userinfo/logout with the error semantics of the uaepass WireMock mappings,
+ * and a single-use code and token per login like the stateful mock
+ *
+ * Keycloak reaches it through the Testcontainers host gateway, so there is no container in between.
+ */
+public class UaePassStubServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UaePassStubServer.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static final String CLIENT_ID = "uaepass-client";
+    public static final String CLIENT_SECRET = "uaepass-client-secret";
+    public static final String ACR_VALUES = "urn:safelayer:tws:policies:authentication:level:low";
+    private static final Pattern BROKER_ENDPOINT = Pattern.compile("http://.+/realms/.+/broker/.+/endpoint");
+    private static final int ISSUED_CODES_KEPT = 10_000;
+    private static final int REDEEMED_CODES_KEPT = 10_000;
+
+    private final int requestedPort;
+    // Codes not yet redeemed; the oldest are dropped so logins abandoned before the token call do not pile up
+    private final Map<String, PendingCode> issuedCodes = Collections.synchronizedMap(
+            new LinkedHashMap<String, PendingCode>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PendingCode> eldest) {
+                    return size() > ISSUED_CODES_KEPT;
+                }
+            });
+    // Most recent redeemed codes, to tell a replayed code from an unknown one
+    private final Set<String> redeemedCodes = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > REDEEMED_CODES_KEPT;
+                }
+            }));
+    // Tokens not yet used for userinfo; like the stateful mock, a token serves a single userinfo call
+    private final Map<String, SyntheticIdentity> accessTokens = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final byte[] errorPage;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private record PendingCode(String redirectUri, SyntheticIdentity identity) {}
+
+    /**
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public UaePassStubServer(int port) {
+        this.requestedPort = port;
+        this.errorPage = readResource("uaepass/__files/error.html");
+    }
+
+    public void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(requestedPort), 4096);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start UAE Pass stub", e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/idshub/authorize", exchange -> handle(exchange, this::authorize));
+        server.createContext("/idshub/token", exchange -> handle(exchange, this::token));
+        server.createContext("/idshub/userinfo", exchange -> handle(exchange, this::userinfo));
+        server.createContext("/idshub/logout", exchange -> handle(exchange, this::logout));
+        server.createContext("/authenticationendpoint", exchange -> handle(exchange, this::errorPage));
+        server.start();
+        logger.info("✓ UAE Pass stub listening on port {}", getPort());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Requests served since start, for throughput reports
+     */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    // ==================== Endpoints ====================
+
+    private void authorize(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseParameters(exchange.getRequestURI().getRawQuery());
+        String clientId = query.get("client_id");
+        String redirectUri = query.get("redirect_uri");
+        String responseType = query.get("response_type");
+        String state = query.getOrDefault("state", "");
+
+        if (clientId == null) {
+            sendEmpty(exchange, 400);
+        } else if (!clientId.equals(CLIENT_ID)) {
+            redirect(exchange, "/authenticationendpoint/oauth2_error.do?oauthErrorCode=invalid_client&oauthErrorMsg=client.not.found");
+        } else if (redirectUri == null) {
+            redirect(exchange, "/authenticationendpoint/oauth2_error.do?oauthErrorCode=invalid_callback&oauthErrorMsg=callback.missing");
+        } else if (!BROKER_ENDPOINT.matcher(redirectUri).matches()) {
+            redirect(exchange, "/authenticationendpoint/oauth2_error.do?oauthErrorCode=invalid_callback&oauthErrorMsg=callback.not.match");
+        } else if (responseType == null) {
+            redirect(exchange, redirectUri + "?error=invalid_request&error_description=Missing+response_type+parameter+value&state=" + encode(state));
+        } else if (!responseType.equals("code")) {
+            redirect(exchange, redirectUri + "?error=invalid_request&error_description=Invalid+response_type+parameter+value&state=" + encode(state));
+        } else if (query.get("acr_values") == null) {
+            redirect(exchange, "/authenticationendpoint/retry.do?sp=UAE+PASS+Staging+Sandbox&tenantDomain=carbon.super");
+        } else if (!query.get("acr_values").equals(ACR_VALUES)) {
+            sendEmpty(exchange, 404);
+        } else {
+            String code = UUID.randomUUID().toString();
+            issuedCodes.put(code, new PendingCode(redirectUri, SyntheticIdentity.forHint(query.get("login_hint"))));
+            redirect(exchange, redirectUri + "?code=" + code + "&state=" + encode(state));
+        }
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendEmpty(exchange, 405);
+            return;
+        }
+        Map<String, String> form;
+        try (InputStream body = exchange.getRequestBody()) {
+            form = parseParameters(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        String grantType = form.get("grant_type");
+        String code = form.get("code");
+        String redirectUri = form.get("redirect_uri");
+
+        if (grantType == null || !grantType.equals("authorization_code")) {
+            sendJson(exchange, 400, Map.of("error", "Bad grant type"));
+        } else if (code == null) {
+            sendJson(exchange, 400, Map.of("error", "invalid_request", "error_description", "missingAuthzCode"));
+        } else if (redirectUri == null) {
+            sendJson(exchange, 400, Map.of("error", "invalid_request", "error_description", "Missing parameters: redirect_uri"));
+        } else if (!CLIENT_ID.equals(form.get("client_id")) || !CLIENT_SECRET.equals(form.get("client_secret"))) {
+            sendJson(exchange, 401, Map.of("error_description", "Unsupported Client Authentication Method!", "error", "invalid_client"));
+        } else if (!BROKER_ENDPOINT.matcher(redirectUri).matches() && issuedCodes.containsKey(code)) {
+            sendJson(exchange, 400, Map.of("error", "invalid_grant", "error_description", "Callback url mismatch"));
+        } else if (!redeemedCodes.add(code)) {
+            // Already redeemed, possibly by a concurrent request for the same code
+            sendJson(exchange, 400, Map.of("error", "invalid_grant",
+                    "error_description", "Expired or Revoked authorization code received from token request"));
+        } else {
+            PendingCode pending = issuedCodes.remove(code);
+            if (pending == null) {
+                redeemedCodes.remove(code);
+                sendJson(exchange, 400, Map.of("error", "invalid_grant",
+                        "error_description", "Invalid authorization code received from token request"));
+                return;
+            }
+            String accessToken = UUID.randomUUID().toString();
+            accessTokens.put(accessToken, pending.identity());
+            sendJson(exchange, 200, Map.of(
+                    "access_token", accessToken,
+                    "scope", "urn:uae:digitalid:profile:general",
+                    "token_type", "Bearer",
+                    "expires_in", 3600));
+        }
+    }
+
+    private void userinfo(HttpExchange exchange) throws IOException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        SyntheticIdentity identity = authorization != null && authorization.startsWith("Bearer ")
+                ? accessTokens.remove(authorization.substring("Bearer ".length()))
+                : null;
+        if (identity == null) {
+            sendJson(exchange, 401, Map.of("error", "invalid_token", "error_description", "Access token validation failed"));
+        } else {
+            sendJson(exchange, 200, identity.userInfoClaims());
+        }
+    }
+
+    private void logout(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseParameters(exchange.getRequestURI().getRawQuery());
+        String redirectUri = query.getOrDefault("redirect_uri", query.get("post_logout_redirect_uri"));
+        if (redirectUri != null) {
+            redirect(exchange, redirectUri);
+        } else {
+            sendEmpty(exchange, 200);
+        }
+    }
+
+    private void errorPage(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html");
+        exchange.sendResponseHeaders(200, errorPage.length);
+        exchange.getResponseBody().write(errorPage);
+    }
+
+    // ==================== Helpers ====================
+
+    private interface Endpoint {
+        void serve(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) {
+        requests.incrementAndGet();
+        try {
+            endpoint.serve(exchange);
+        } catch (Exception e) {
+            logger.error("✗ UAE Pass stub failed on {}", exchange.getRequestURI(), e);
+            try {
+                sendEmpty(exchange, 500);
+            } catch (IOException ignored) {
+                // response already started
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void redirect(HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Map<String, ?> body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> parseParameters(String raw) {
+        Map<String, String> parameters = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            String[] parts = pair.split("=", 2);
+            parameters.putIfAbsent(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                    parts.length == 2 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return parameters;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readResource(String path) {
+        try (InputStream resource = UaePassStubServer.class.getClassLoader().getResourceAsStream(path)) {
+            if (resource == null) {
+                throw new IllegalStateException("Missing resource: " + path);
+            }
+            return resource.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Base URL of a server listening on the given host, e.g. {@code http://localhost:1234/idshub}
+     */
+    public String baseUrl(String host) {
+        return URI.create("http://" + host + ":" + getPort() + "/idshub").toString();
+    }
+}
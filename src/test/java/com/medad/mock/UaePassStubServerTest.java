@@ -0,0 +1,155 @@
+package com.medad.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The in-JVM UAE Pass stub on its own (no containers): error semantics of the WireMock mappings and
+ * per-login codes and tokens. Its throughput is measured by UaePassMockBenchmarkTest with UAEPASS_MOCK_MODE=in-jvm.
+ */
+@Epic("Medad Identity")
+@Feature("UAE Pass Integration")
+public class UaePassStubServerTest {
+
+    private static final String REDIRECT_URI = "http://keycloak:8080/realms/medad/broker/uaepass/endpoint";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static UaePassStubServer stub;
+    private static String baseUrl;
+    private static HttpClient httpClient;
+
+    @BeforeAll
+    static void startStub() {
+        stub = new UaePassStubServer(0);
+        stub.start();
+        baseUrl = stub.baseUrl("localhost");
+        httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        httpClient.close();
+        stub.stop();
+    }
+
+    @Test
+    @DisplayName("UAE Pass stub rejects invalid authorize and token requests like the WireMock mappings")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("In-JVM UAE Pass stub")
+    public void testErrorSemantics() throws Exception {
+        Allure.step("Authorize without client_id returns 400", () ->
+                assertEquals(400, authorize("response_type=code&redirect_uri=" + encode(REDIRECT_URI)).statusCode()));
+        Allure.step("Authorize with an unknown client redirects to the OAuth error page", () ->
+                assertTrue(location(authorize("client_id=other&redirect_uri=" + encode(REDIRECT_URI)))
+                        .contains("oauthErrorCode=invalid_client")));
+        Allure.step("Authorize with a foreign redirect_uri redirects to the OAuth error page", () ->
+                assertTrue(location(authorize("client_id=uaepass-client&redirect_uri=" + encode("http://evil.example/cb")))
+                        .contains("callback.not.match")));
+        Allure.step("Authorize without response_type returns the error to the broker", () ->
+                assertTrue(location(authorize("client_id=uaepass-client&state=s1&redirect_uri=" + encode(REDIRECT_URI)))
+                        .startsWith(REDIRECT_URI + "?error=invalid_request")));
+        Allure.step("Authorize without acr_values goes to the retry page", () ->
+                assertTrue(location(authorize("client_id=uaepass-client&response_type=code&redirect_uri=" + encode(REDIRECT_URI)))
+                        .startsWith("/authenticationendpoint/retry.do")));
+        Allure.step("Token with an unknown code returns invalid_grant", () -> {
+            HttpResponse<String> response = token("never-issued", UaePassStubServer.CLIENT_SECRET);
+            assertEquals(400, response.statusCode());
+            assertEquals("invalid_grant", objectMapper.readTree(response.body()).get("error").asText());
+        });
+        Allure.step("Token with a wrong client secret returns invalid_client", () ->
+                assertEquals(401, token(issueCode(null), "wrong-secret").statusCode()));
+        Allure.step("Userinfo with an unknown token returns 401", () ->
+                assertEquals(401, userinfo("unknown").statusCode()));
+    }
+
+    @Test
+    @DisplayName("UAE Pass stub issues single-use codes bound to the login_hint identity")
+    @Severity(SeverityLevel.CRITICAL)
+    @Story("In-JVM UAE Pass stub")
+    public void testCodeLifecycle() throws Exception {
+        SyntheticIdentity identity = SyntheticIdentity.of("stub-user");
+        String code = issueCode(identity.loginHint());
+
+        HttpResponse<String> token = token(code, UaePassStubServer.CLIENT_SECRET);
+        assertEquals(200, token.statusCode());
+        HttpResponse<String> replay = token(code, UaePassStubServer.CLIENT_SECRET);
+        assertEquals(400, replay.statusCode(), "A code can only be redeemed once");
+        assertTrue(replay.body().contains("Expired or Revoked"));
+
+        String accessToken = objectMapper.readTree(token.body()).get("access_token").asText();
+        JsonNode profile = objectMapper.readTree(userinfo(accessToken).body());
+        assertEquals(identity.email(), profile.get("email").asText());
+        assertEquals("784928929930911938930928914927", profile.get("idn").asText());
+        assertEquals(identity.mobile(), profile.get("mobile").asText());
+        assertEquals(401, userinfo(accessToken).statusCode(), "A token only serves one userinfo call");
+
+        JsonNode defaultProfile = objectMapper.readTree(userinfo(objectMapper.readTree(
+                token(issueCode(null), UaePassStubServer.CLIENT_SECRET).body()).get("access_token").asText()).body());
+        assertEquals(SyntheticIdentity.DEFAULT.email(), defaultProfile.get("email").asText());
+
+        JsonNode unsupportedHintProfile = objectMapper.readTree(userinfo(objectMapper.readTree(
+                token(issueCode("User@Example.com"), UaePassStubServer.CLIENT_SECRET).body()).get("access_token").asText()).body());
+        assertEquals(SyntheticIdentity.DEFAULT.email(), unsupportedHintProfile.get("email").asText(),
+                "A hint outside [a-z0-9._-] should fall back to the default identity");
+    }
+
+    // ==================== Helpers ====================
+
+    private static String issueCode(String loginHint) throws Exception {
+        String query = "client_id=uaepass-client&response_type=code&state=s"
+                + "&acr_values=" + encode(UaePassStubServer.ACR_VALUES)
+                + "&redirect_uri=" + encode(REDIRECT_URI)
+                + (loginHint != null ? "&login_hint=" + encode(loginHint) : "");
+        String location = location(authorize(query));
+        return location.substring(location.indexOf("code=") + 5, location.indexOf("&state="));
+    }
+
+    private static HttpResponse<String> authorize(String query) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/authorize?" + query)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> token(String code, String clientSecret) throws Exception {
+        String form = "grant_type=authorization_code&code=" + encode(code)
+                + "&redirect_uri=" + encode(REDIRECT_URI)
+                + "&client_id=uaepass-client&client_secret=" + encode(clientSecret);
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/token"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> userinfo(String accessToken) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/userinfo"))
+                        .header("Authorization", "Bearer " + accessToken).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String location(HttpResponse<String> response) {
+        assertEquals(302, response.statusCode(), "Expected a redirect");
+        return response.headers().firstValue("Location").orElseThrow();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,320 @@
+package com.medad.protocol;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Browserless user agent for the UAE Pass brokered login
+ * Responsibility: follow the redirects from the Medad SSO URL through UAE Pass and back, answer the Keycloak
+ * first-broker-login forms from the returned HTML, and stop at the relying-party callback with the code
+ *
+ * One driver is one user agent: it keeps its own cookies, so use one per concurrent flow.
+ * It does not run JavaScript; the medad theme pages work without it.
+ */
+public class BrokerLoginDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrokerLoginDriver.class);
+    private static final int MAX_REQUESTS = 40;
+    private static final int MAX_SUBMITS_PER_FORM = 2;
+
+    public static final String LOGIN_FORM = "kc-form-login";
+    public static final String EXISTING_ACCOUNT_FORM = "kc-existing-account-question-form";
+
+    private final String idpAlias;
+    private final String callbackUrl;
+    private final HttpClient httpClient;
+    // Keyed by host, then cookie name; Secure is ignored like browsers do for localhost
+    private final Map<String, Map<String, HttpCookie>> cookies = new ConcurrentHashMap<>();
+    private final Map<String, String> formValues = new LinkedHashMap<>();
+    private Duration requestTimeout = Duration.ofSeconds(30);
+    private String username;
+    private String password;
+    private String existingAccountAnswer = "yes";
+
+    /**
+     * @param idpAlias Identity provider to pick on the login page (e.g., "uaepass")
+     * @param callbackUrl Relying-party redirect URI; the flow ends when Keycloak redirects there
+     */
+    public BrokerLoginDriver(String idpAlias, String callbackUrl) {
+        this(idpAlias, callbackUrl, HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build());
+    }
+
+    /**
+     * @param httpClient Shared client for load tests; must not follow redirects
+     */
+    public BrokerLoginDriver(String idpAlias, String callbackUrl, HttpClient httpClient) {
+        this.idpAlias = idpAlias;
+        this.callbackUrl = callbackUrl;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Credentials for the Keycloak login form shown when linking an existing account manually
+     */
+    public BrokerLoginDriver withCredentials(String username, String password) {
+        this.username = username;
+        this.password = password;
+        return this;
+    }
+
+    /**
+     * Answer to "Do you already have an account?"; yes (the default) goes to the login form, no to registration
+     */
+    public BrokerLoginDriver answerExistingAccount(boolean hasAccount) {
+        this.existingAccountAnswer = hasAccount ? "yes" : "no";
+        return this;
+    }
+
+    /**
+     * Value to send for a field of any other form (e.g., "termsAccepted" -> "on" on the registration form)
+     */
+    public BrokerLoginDriver withFormValue(String name, String value) {
+        formValues.put(name, value);
+        return this;
+    }
+
+    public BrokerLoginDriver withRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    /**
+     * Forget the SSO session, so the next login goes through the broker again
+     */
+    public void clearCookies() {
+        cookies.clear();
+    }
+
+    /**
+     * Run one login from the Medad SSO URL (see BaseTest#createMedadSSO)
+     */
+    public BrokerLoginResult login(String authUrl) {
+        Flow steps = new Flow(URI.create(authUrl).getRawAuthority());
+        Map<String, Integer> submits = new HashMap<>();
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(authUrl)).GET(), steps);
+        boolean idpChosen = false;
+
+        while (steps.size() < MAX_REQUESTS) {
+            URI current = response.uri();
+            if (isRedirect(response.statusCode())) {
+                URI location = current.resolve(response.headers().firstValue("Location")
+                        .orElseThrow(() -> new IllegalStateException("Redirect without Location from " + current)));
+                if (location.toString().startsWith(callbackUrl)) {
+                    return callback(location, response, steps);
+                }
+                response = send(HttpRequest.newBuilder(location).GET(), steps);
+                continue;
+            }
+
+            String html = response.body();
+            if (!idpChosen) {
+                Optional<String> idpLink = HtmlForm.linkHref(html, "social-" + idpAlias);
+                if (idpLink.isPresent()) {
+                    idpChosen = true;
+                    response = send(HttpRequest.newBuilder(current.resolve(idpLink.get())).GET(), steps);
+                    continue;
+                }
+            }
+
+            Optional<HtmlForm> form = HtmlForm.parseAll(html).stream()
+                    .filter(candidate -> !candidate.action().isEmpty())
+                    .findFirst();
+            String pageName = HtmlForm.templateName(html).orElse(form.map(HtmlForm::id).orElse("unknown"));
+            if (form.isEmpty() || submits.merge(form.get().id(), 1, Integer::sum) > MAX_SUBMITS_PER_FORM) {
+                return stopped(pageName, response, steps);
+            }
+            Map<String, String> submission = answer(form.get());
+            if (submission == null) {
+                return stopped(pageName, response, steps);
+            }
+            response = submit(current, form.get(), submission, steps);
+        }
+        logger.warn("⚠ Broker login gave up after {} requests", steps.size());
+        return stopped("too-many-requests", response, steps);
+    }
+
+    // ==================== Forms ====================
+
+    /**
+     * Fields to submit for a page, or null if the driver has no answer for it
+     */
+    private Map<String, String> answer(HtmlForm form) {
+        return switch (form.id()) {
+            case EXISTING_ACCOUNT_FORM -> form.button("existingAccountAnswer", existingAccountAnswer)
+                    .map(button -> form.submission(button, Map.of()))
+                    .orElse(null);
+            case LOGIN_FORM -> {
+                if (username == null) {
+                    yield null;
+                }
+                Map<String, String> credentials = new LinkedHashMap<>(formValues);
+                credentials.put("username", username);
+                credentials.put("password", password);
+                yield form.submission(form.buttons().isEmpty() ? null : form.buttons().getFirst(), credentials);
+            }
+            default -> form.submission(form.buttons().isEmpty() ? null : form.buttons().getFirst(), formValues);
+        };
+    }
+
+    private HttpResponse<String> submit(URI page, HtmlForm form, Map<String, String> fields, Flow steps) {
+        URI action = page.resolve(form.action());
+        String encoded = fields.entrySet().stream()
+                .map(field -> encode(field.getKey()) + "=" + encode(field.getValue()))
+                .collect(Collectors.joining("&"));
+        if (form.method().equals("GET")) {
+            return send(HttpRequest.newBuilder(URI.create(action + (action.getQuery() == null ? "?" : "&") + encoded)).GET(), steps);
+        }
+        return send(HttpRequest.newBuilder(action)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encoded)), steps);
+    }
+
+    // ==================== HTTP ====================
+
+    /**
+     * Requests of one login and the time spent in each phase; requests leave Keycloak for UAE Pass in the
+     * authorize phase and come back through the broker endpoint, after which the callback phase starts
+     */
+    private static final class Flow {
+        private final String keycloakAuthority;
+        private final long startedNanos = System.nanoTime();
+        private final List<String> lines = new ArrayList<>();
+        private final Map<LoginPhase, Duration> phases = new EnumMap<>(LoginPhase.class);
+        private LoginPhase phase = LoginPhase.AUTHORIZE;
+
+        private Flow(String keycloakAuthority) {
+            this.keycloakAuthority = keycloakAuthority;
+        }
+
+        private LoginPhase phaseOf(URI uri) {
+            boolean keycloak = keycloakAuthority.equals(uri.getRawAuthority());
+            if (phase == LoginPhase.AUTHORIZE && !keycloak) {
+                phase = LoginPhase.BROKER_ROUND_TRIP;
+            } else if (phase == LoginPhase.BROKER_ROUND_TRIP && keycloak && !uri.getPath().endsWith("/endpoint")) {
+                phase = LoginPhase.CALLBACK;
+            }
+            return phase;
+        }
+
+        private void add(LoginPhase phase, String line, long nanos) {
+            lines.add(line);
+            phases.merge(phase, Duration.ofNanos(nanos), Duration::plus);
+        }
+
+        private int size() {
+            return lines.size();
+        }
+
+        private Duration elapsed() {
+            return Duration.ofNanos(System.nanoTime() - startedNanos);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder, Flow steps) {
+        HttpRequest request = builder.timeout(requestTimeout).build();
+        String cookieHeader = cookieHeader(request.uri());
+        if (!cookieHeader.isEmpty()) {
+            request = HttpRequest.newBuilder(request, (name, value) -> true)
+                    .header("Cookie", cookieHeader)
+                    .build();
+        }
+        LoginPhase phase = steps.phaseOf(request.uri());
+        long started = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            storeCookies(request.uri(), response);
+            steps.add(phase, response.statusCode() + " " + request.method() + " " + request.uri(), System.nanoTime() - started);
+            logger.debug("{} {} -> {}", request.method(), request.uri(), response.statusCode());
+            return response;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Broker login request failed: " + request.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during broker login", e);
+        }
+    }
+
+    private void storeCookies(URI uri, HttpResponse<?> response) {
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(header)) {
+                if (cookie.getPath() == null) {
+                    cookie.setPath("/");
+                }
+                Map<String, HttpCookie> hostCookies = cookies.computeIfAbsent(uri.getHost(), host -> new ConcurrentHashMap<>());
+                if (cookie.hasExpired()) {
+                    hostCookies.remove(cookie.getName());
+                } else {
+                    hostCookies.put(cookie.getName(), cookie);
+                }
+            }
+        }
+    }
+
+    private String cookieHeader(URI uri) {
+        Map<String, HttpCookie> hostCookies = cookies.getOrDefault(uri.getHost(), Map.of());
+        String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+        return hostCookies.values().stream()
+                .filter(cookie -> !cookie.hasExpired() && path.startsWith(cookie.getPath()))
+                .map(cookie -> cookie.getName() + "=" + cookie.getValue())
+                .collect(Collectors.joining("; "));
+    }
+
+    // ==================== Results ====================
+
+    private static BrokerLoginResult callback(URI location, HttpResponse<String> response, Flow steps) {
+        Map<String, String> query = parseQuery(location.getRawQuery());
+        steps.lines.add("--> " + location);
+        return new BrokerLoginResult(true, query.get("code"), query.get("state"), query.get("error"), null,
+                response.statusCode(), location, "", List.copyOf(steps.lines), steps.elapsed(), Map.copyOf(steps.phases));
+    }
+
+    private static BrokerLoginResult stopped(String pageName, HttpResponse<String> response, Flow steps) {
+        return new BrokerLoginResult(false, null, null, null, pageName, response.statusCode(), response.uri(),
+                response.body(), List.copyOf(steps.lines), steps.elapsed(), Map.copyOf(steps.phases));
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> parameters = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            String[] parts = pair.split("=", 2);
+            parameters.putIfAbsent(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                    parts.length == 2 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return parameters;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
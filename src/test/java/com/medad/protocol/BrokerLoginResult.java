@@ -0,0 +1,40 @@
+package com.medad.protocol;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one browserless broker login
+ *
+ * @param reachedCallback True if Keycloak redirected to the relying-party callback
+ * @param code Authorization code from the callback, null if there was none
+ * @param error OAuth error from the callback, null if there was none
+ * @param lastPage Template (or form id) of the last page shown, null if the flow ended at the callback
+ * @param lastStatus HTTP status of the last response
+ * @param lastBody Body of the last page, for assertions on error messages
+ * @param steps One line per request, e.g. "302 GET http://localhost:8080/realms/medad/..."
+ * @param phases Time spent in requests of the authorize, broker round trip and callback phases
+ */
+public record BrokerLoginResult(boolean reachedCallback, String code, String state, String error,
+                                String lastPage, int lastStatus, URI lastUri, String lastBody,
+                                List<String> steps, Duration elapsed, Map<LoginPhase, Duration> phases) {
+
+    /**
+     * Number of HTTP requests the login took
+     */
+    public int requests() {
+        return (int) steps.stream().filter(step -> !step.startsWith("-->")).count();
+    }
+
+    /**
+     * Steps as text, for an Allure attachment
+     */
+    public String describe() {
+        return String.join("\n", steps)
+                + "\n-> " + (reachedCallback ? "callback (code=" + (code != null) + ", error=" + error + ")" : "page " + lastPage)
+                + " in " + elapsed.toMillis() + " ms"
+                + "\n" + LoginPhase.describe(phases);
+    }
+}
@@ -0,0 +1,196 @@
+package com.medad.protocol;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A form parsed out of a Keycloak login page
+ * Responsibility: read the action, the fields the browser would submit and the submit buttons,
+ * without a DOM; good enough for the server-rendered medad theme pages
+ *
+ * @param id Form id (e.g., "kc-form-login"), or "" if it has none
+ * @param fields Values the browser would send: text/hidden inputs, checked boxes, selected options
+ * @param buttons Named submit buttons as name/value pairs (submit inputs first, then button elements)
+ */
+public record HtmlForm(String id, String action, String method, Map<String, String> fields,
+                       List<Map.Entry<String, String>> buttons) {
+
+    private static final Pattern FORM = Pattern.compile("<form\\b([^>]*)>(.*?)</form>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern INPUT = Pattern.compile("<input\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BUTTON = Pattern.compile("<button\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TEXTAREA = Pattern.compile("<textarea\\b([^>]*)>(.*?)</textarea>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern SELECT = Pattern.compile("<select\\b([^>]*)>(.*?)</select>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern OPTION = Pattern.compile("<option\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ANCHOR = Pattern.compile("<a\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "([\\w:-]+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+)))?");
+    private static final Pattern TEMPLATE = Pattern.compile("<!--\\s*template:\\s*([\\w.-]+)\\s*-->");
+
+    /**
+     * All forms on the page, in document order
+     */
+    public static List<HtmlForm> parseAll(String html) {
+        List<HtmlForm> forms = new ArrayList<>();
+        Matcher form = FORM.matcher(html);
+        while (form.find()) {
+            forms.add(parse(attributes(form.group(1)), form.group(2)));
+        }
+        return forms;
+    }
+
+    /**
+     * href of the anchor with the given id, e.g. the "social-uaepass" identity provider link
+     */
+    public static Optional<String> linkHref(String html, String anchorId) {
+        Matcher anchor = ANCHOR.matcher(html);
+        while (anchor.find()) {
+            Map<String, String> attributes = attributes(anchor.group(1));
+            if (anchorId.equals(attributes.get("id")) && attributes.containsKey("href")) {
+                return Optional.of(attributes.get("href"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Name of the theme template that rendered the page, from its "template: x.ftl" marker comment
+     */
+    public static Optional<String> templateName(String html) {
+        Matcher template = TEMPLATE.matcher(html);
+        return template.find() ? Optional.of(template.group(1)) : Optional.empty();
+    }
+
+    /**
+     * Fields to post when submitting with the given button (null for none) and overridden values
+     */
+    public Map<String, String> submission(Map.Entry<String, String> button, Map<String, String> overrides) {
+        Map<String, String> submission = new LinkedHashMap<>(fields);
+        overrides.forEach((name, value) -> {
+            if (value == null) {
+                submission.remove(name);
+            } else {
+                submission.put(name, value);
+            }
+        });
+        if (button != null) {
+            submission.put(button.getKey(), button.getValue());
+        }
+        return submission;
+    }
+
+    /**
+     * First submit button with the given name and value
+     */
+    public Optional<Map.Entry<String, String>> button(String name, String value) {
+        return buttons.stream()
+                .filter(button -> button.getKey().equals(name) && button.getValue().equals(value))
+                .findFirst();
+    }
+
+    private static HtmlForm parse(Map<String, String> formAttributes, String body) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        List<Map.Entry<String, String>> buttons = new ArrayList<>();
+
+        Matcher input = INPUT.matcher(body);
+        while (input.find()) {
+            Map<String, String> attributes = attributes(input.group(1));
+            String name = attributes.get("name");
+            if (name == null || name.isEmpty() || attributes.containsKey("disabled")) {
+                continue;
+            }
+            String type = attributes.getOrDefault("type", "text").toLowerCase();
+            String value = attributes.getOrDefault("value", "");
+            switch (type) {
+                case "submit", "image" -> buttons.add(Map.entry(name, value));
+                case "checkbox", "radio" -> {
+                    if (attributes.containsKey("checked")) {
+                        fields.put(name, attributes.getOrDefault("value", "on"));
+                    }
+                }
+                case "button", "reset", "file" -> { }
+                default -> fields.putIfAbsent(name, value);
+            }
+        }
+
+        Matcher button = BUTTON.matcher(body);
+        while (button.find()) {
+            Map<String, String> attributes = attributes(button.group(1));
+            String name = attributes.get("name");
+            String type = attributes.getOrDefault("type", "submit").toLowerCase();
+            if (name != null && !name.isEmpty() && type.equals("submit")) {
+                buttons.add(Map.entry(name, attributes.getOrDefault("value", "")));
+            }
+        }
+
+        Matcher textarea = TEXTAREA.matcher(body);
+        while (textarea.find()) {
+            String name = attributes(textarea.group(1)).get("name");
+            if (name != null) {
+                fields.putIfAbsent(name, unescape(textarea.group(2)));
+            }
+        }
+
+        Matcher select = SELECT.matcher(body);
+        while (select.find()) {
+            String name = attributes(select.group(1)).get("name");
+            if (name == null) {
+                continue;
+            }
+            String first = null;
+            String selected = null;
+            Matcher option = OPTION.matcher(select.group(2));
+            while (option.find()) {
+                Map<String, String> attributes = attributes(option.group(1));
+                String value = attributes.getOrDefault("value", "");
+                first = first == null ? value : first;
+                if (attributes.containsKey("selected")) {
+                    selected = value;
+                }
+            }
+            if (selected != null || first != null) {
+                fields.putIfAbsent(name, selected != null ? selected : first);
+            }
+        }
+
+        return new HtmlForm(formAttributes.getOrDefault("id", ""), formAttributes.getOrDefault("action", ""),
+                formAttributes.getOrDefault("method", "get").toUpperCase(), fields, buttons);
+    }
+
+    private static Map<String, String> attributes(String tag) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        Matcher attribute = ATTRIBUTE.matcher(tag);
+        while (attribute.find()) {
+            String value = attribute.group(2) != null ? attribute.group(2)
+                    : attribute.group(3) != null ? attribute.group(3)
+                    : attribute.group(4) != null ? attribute.group(4)
+                    : "";
+            attributes.putIfAbsent(attribute.group(1).toLowerCase(), unescape(value));
+        }
+        return attributes;
+    }
+
+    /**
+     * Undo the HTML escaping FreeMarker applies to attribute values (URLs carry &amp;amp;)
+     */
+    static String unescape(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&#x27;", "'")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&#x2F;", "/")
+                .replace("&#61;", "=")
+                .replace("&amp;", "&");
+    }
+}
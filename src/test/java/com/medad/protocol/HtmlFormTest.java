@@ -0,0 +1,70 @@
+package com.medad.protocol;
+
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * HtmlForm on markup shaped like the medad theme pages (no containers).
+ */
+@Epic("Medad Identity")
+@Feature("UAE Pass Integration")
+public class HtmlFormTest {
+
+    private static final String EXISTING_ACCOUNT_PAGE = """
+            <!-- template: idp-existing-account-question.ftl -->
+            <form id="kc-existing-account-question-form" class="form" action="/realms/medad/login-actions/first-broker-login?session_code=abc&amp;execution=e1&amp;tab_id=t1" method="post" novalidate="novalidate">
+              <button class="pf-c-button " name="existingAccountAnswer" id="existing-account-question-yes" type="submit" value="yes">Yes</button>
+              <button class="pf-c-button " name="existingAccountAnswer" id="existing-account-question-no" type="submit" value="no">No</button>
+            </form>
+            """;
+
+    private static final String LOGIN_PAGE = """
+            <a data-once-link id="social-uaepass" class="uaepass" type="button" href="/realms/medad/broker/uaepass/login?client_id=test-client&amp;tab_id=t1&amp;session_code=abc">UAE Pass</a>
+            <form id="kc-form-login" onsubmit="login.disabled = true; return true;" action="/realms/medad/login-actions/authenticate?tab_id=t1" method="post">
+              <input tabindex="2" id="username" name="username" value=""  type="text" autofocus autocomplete="username"/>
+              <input tabindex="3" id="password" name="password" type="password" autocomplete="current-password"/>
+              <input tabindex="5" id="rememberMe" name="rememberMe" type="checkbox">
+              <input type="hidden" id="id-hidden-input" name="credentialId"/>
+              <input tabindex="7" name="login" id="kc-login" type="submit" value="Sign In"/>
+            </form>
+            """;
+
+    @Test
+    @DisplayName("HtmlForm reads the existing-account question form and its answer buttons")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Browserless broker login")
+    public void testExistingAccountQuestion() {
+        HtmlForm form = HtmlForm.parseAll(EXISTING_ACCOUNT_PAGE).getFirst();
+
+        assertEquals("kc-existing-account-question-form", form.id());
+        assertEquals("/realms/medad/login-actions/first-broker-login?session_code=abc&execution=e1&tab_id=t1", form.action());
+        assertEquals("POST", form.method());
+        assertEquals(List.of(Map.entry("existingAccountAnswer", "yes"), Map.entry("existingAccountAnswer", "no")), form.buttons());
+        assertEquals(Map.of("existingAccountAnswer", "no"),
+                form.submission(form.button("existingAccountAnswer", "no").orElseThrow(), Map.of()));
+        assertEquals("idp-existing-account-question.ftl", HtmlForm.templateName(EXISTING_ACCOUNT_PAGE).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("HtmlForm reads the login form fields and the identity provider link")
+    @Severity(SeverityLevel.MINOR)
+    @Story("Browserless broker login")
+    public void testLoginPage() {
+        HtmlForm form = HtmlForm.parseAll(LOGIN_PAGE).getFirst();
+
+        assertEquals("kc-form-login", form.id());
+        assertEquals(Map.of("username", "", "password", "", "credentialId", ""), form.fields());
+        assertFalse(form.fields().containsKey("rememberMe"), "Unchecked boxes are not submitted");
+        assertEquals(Map.of("username", "user", "password", "secret", "credentialId", "", "login", "Sign In"),
+                form.submission(form.buttons().getFirst(), Map.of("username", "user", "password", "secret")));
+        assertEquals("/realms/medad/broker/uaepass/login?client_id=test-client&tab_id=t1&session_code=abc",
+                HtmlForm.linkHref(LOGIN_PAGE, "social-uaepass").orElseThrow());
+    }
+}
@@ -0,0 +1,107 @@
+package com.medad.protocol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signing keys of each realm, fetched once from its JWKS endpoint
+ * Responsibility: resolve an RS256 key by realm and kid; refetch a realm's keys once when a kid is unknown
+ * (key rotation or a realm recreated under the same name)
+ */
+public class JwksCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksCache.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String keycloakBaseUrl;
+    private final HttpClient httpClient;
+    private final Map<String, Map<String, PublicKey>> keysByRealm = new ConcurrentHashMap<>();
+    private final AtomicLong fetches = new AtomicLong();
+
+    public JwksCache(String keycloakBaseUrl, HttpClient httpClient) {
+        this.keycloakBaseUrl = keycloakBaseUrl;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * @return The key, or null if the realm does not publish it even after a refetch
+     */
+    public PublicKey key(String realm, String kid) {
+        PublicKey key = keysByRealm.computeIfAbsent(realm, this::fetch).get(kid);
+        if (key == null) {
+            logger.info("Key '{}' not cached for realm '{}', refetching JWKS", kid, realm);
+            key = keysByRealm.compute(realm, (name, stale) -> fetch(name)).get(kid);
+        }
+        return key;
+    }
+
+    /**
+     * Drop a realm's keys, e.g. after the realm was deleted
+     */
+    public void evict(String realm) {
+        keysByRealm.remove(realm);
+    }
+
+    /**
+     * JWKS downloads so far; with a warm cache this stays at one per realm
+     */
+    public long fetchCount() {
+        return fetches.get();
+    }
+
+    private Map<String, PublicKey> fetch(String realm) {
+        URI certs = URI.create(keycloakBaseUrl + "/realms/" + realm + "/protocol/openid-connect/certs");
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(certs)
+                    .timeout(Duration.ofSeconds(10)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            fetches.incrementAndGet();
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("JWKS request for realm '" + realm + "' returned " + response.statusCode());
+            }
+            Map<String, PublicKey> keys = new HashMap<>();
+            for (JsonNode jwk : objectMapper.readTree(response.body()).path("keys")) {
+                if ("RSA".equals(jwk.path("kty").asText()) && !"enc".equals(jwk.path("use").asText())) {
+                    keys.put(jwk.path("kid").asText(), rsaKey(jwk));
+                }
+            }
+            logger.info("✓ Cached {} signing key(s) for realm '{}'", keys.size(), realm);
+            return keys;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fetch JWKS for realm " + realm, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching JWKS", e);
+        }
+    }
+
+    private static PublicKey rsaKey(JsonNode jwk) {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        BigInteger modulus = new BigInteger(1, decoder.decode(jwk.path("n").asText()));
+        BigInteger exponent = new BigInteger(1, decoder.decode(jwk.path("e").asText()));
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid RSA key in JWKS: " + jwk.path("kid").asText(), e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.medad.protocol;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Phases of an end-to-end UAE Pass login, from the Medad SSO URL to a validated ID token
+ */
+public enum LoginPhase {
+    // Keycloak authorization endpoint and login page, up to the redirect to UAE Pass
+    AUTHORIZE("authorize"),
+    // UAE Pass authorize and the broker endpoint, which calls the UAE Pass token and userinfo endpoints
+    BROKER_ROUND_TRIP("broker round trip"),
+    // First-broker-login pages and the redirect to the relying-party callback
+    CALLBACK("callback"),
+    // Relying party redeems the code at the realm token endpoint
+    TOKEN_EXCHANGE("token exchange"),
+    // ID token signature and claims checked against the realm JWKS
+    VALIDATION("validation");
+
+    private final String label;
+
+    LoginPhase(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * One "phase: n ms" line per recorded phase, in flow order
+     */
+    public static String describe(Map<LoginPhase, Duration> phases) {
+        StringBuilder text = new StringBuilder();
+        for (LoginPhase phase : values()) {
+            Duration duration = phases.get(phase);
+            if (duration != null) {
+                text.append(String.format("%-18s: %d ms%n", phase.label(), duration.toMillis()));
+            }
+        }
+        return text.toString();
+    }
+}
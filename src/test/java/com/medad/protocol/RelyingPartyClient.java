@@ -0,0 +1,240 @@
+package com.medad.protocol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The relying party's back channel
+ * Responsibility: redeem the callback code at the realm token endpoint and validate the RS256 ID token
+ * against the realm JWKS (see JwksCache), timing both phases
+ */
+public class RelyingPartyClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelyingPartyClient.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final long CLOCK_SKEW_SECONDS = 30;
+
+    private final String keycloakBaseUrl;
+    private final String clientId;
+    private final String clientSecret;
+    private final HttpClient httpClient;
+    private final JwksCache jwks;
+
+    /**
+     * Tokens and timings of a completed login
+     * @param idTokenClaims Validated ID token payload
+     * @param phases Time per phase; a browser login has the browser phases only if its navigations were timed
+     */
+    public record Login(String accessToken, JsonNode idTokenClaims, Map<LoginPhase, Duration> phases) {
+
+        /**
+         * Sum of the recorded phases; only the back channel when the browser phases were not timed
+         */
+        public Duration total() {
+            return phases.values().stream().reduce(Duration.ZERO, Duration::plus);
+        }
+
+        public String describe() {
+            String label = phases.containsKey(LoginPhase.AUTHORIZE) ? "total" : "back-channel total";
+            return LoginPhase.describe(phases) + String.format("%-18s: %d ms", label, total().toMillis());
+        }
+    }
+
+    public RelyingPartyClient(String keycloakBaseUrl, String clientId, String clientSecret) {
+        this.keycloakBaseUrl = keycloakBaseUrl;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        this.jwks = new JwksCache(keycloakBaseUrl, httpClient);
+    }
+
+    public JwksCache getJwks() {
+        return jwks;
+    }
+
+    /**
+     * Finish a browserless login: exchange its code and validate the ID token, keeping the driver's phase timings
+     */
+    public Login complete(String realm, String redirectUri, BrokerLoginResult result) {
+        if (!result.reachedCallback() || result.code() == null) {
+            throw new IllegalStateException("Login did not reach the callback with a code (stopped at "
+                    + result.lastPage() + ", error=" + result.error() + ")");
+        }
+        return exchange(realm, redirectUri, result.code(), result.phases());
+    }
+
+    /**
+     * Finish a browser login from the URL the browser landed on
+     * @param callbackUrl e.g. page.url() after waiting for the callback
+     */
+    public Login completeFromCallback(String realm, String redirectUri, String callbackUrl) {
+        return completeFromCallback(realm, redirectUri, callbackUrl, Map.of());
+    }
+
+    /**
+     * Same as {@link #completeFromCallback(String, String, String)}, keeping the browser phase timings
+     * @param browserPhases e.g. NavigationTimeline.brokerLoginPhases of the page
+     */
+    public Login completeFromCallback(String realm, String redirectUri, String callbackUrl,
+                                      Map<LoginPhase, Duration> browserPhases) {
+        String code = queryParameter(URI.create(callbackUrl), "code");
+        if (code == null) {
+            throw new IllegalStateException("Callback has no code: " + callbackUrl);
+        }
+        return exchange(realm, redirectUri, code, browserPhases);
+    }
+
+    /**
+     * Redeem a code and validate the returned ID token
+     * @param earlierPhases Timings of the phases before the callback, copied into the result
+     */
+    public Login exchange(String realm, String redirectUri, String code, Map<LoginPhase, Duration> earlierPhases) {
+        Map<LoginPhase, Duration> phases = new EnumMap<>(LoginPhase.class);
+        phases.putAll(earlierPhases);
+
+        long started = System.nanoTime();
+        JsonNode tokens = redeem(realm, redirectUri, code);
+        phases.put(LoginPhase.TOKEN_EXCHANGE, Duration.ofNanos(System.nanoTime() - started));
+
+        started = System.nanoTime();
+        JsonNode claims = validateIdToken(realm, tokens.path("id_token").asText(null));
+        phases.put(LoginPhase.VALIDATION, Duration.ofNanos(System.nanoTime() - started));
+
+        logger.info("✓ Code exchanged and ID token validated for '{}' in realm '{}'", claims.path("sub").asText(), realm);
+        return new Login(tokens.path("access_token").asText(), claims, phases);
+    }
+
+    /**
+     * Check signature, issuer, audience and expiry of an ID token issued by the realm
+     * @return The token's claims
+     */
+    public JsonNode validateIdToken(String realm, String idToken) {
+        if (idToken == null) {
+            throw new IllegalStateException("Token response has no id_token; was the 'openid' scope requested?");
+        }
+        String[] parts = idToken.split("\\.");
+        if (parts.length != 3) {
+            throw new IllegalStateException("ID token is not a JWS");
+        }
+        JsonNode header = decodeJson(parts[0]);
+        JsonNode claims = decodeJson(parts[1]);
+
+        if (!"RS256".equals(header.path("alg").asText())) {
+            throw new IllegalStateException("Unexpected ID token algorithm: " + header.path("alg").asText());
+        }
+        PublicKey key = jwks.key(realm, header.path("kid").asText());
+        if (key == null) {
+            throw new IllegalStateException("No JWKS key '" + header.path("kid").asText() + "' in realm " + realm);
+        }
+        try {
+            Signature verifier = Signature.getInstance("SHA256withRSA");
+            verifier.initVerify(key);
+            verifier.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!verifier.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new IllegalStateException("ID token signature is invalid");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not verify ID token signature", e);
+        }
+
+        String issuer = keycloakBaseUrl + "/realms/" + realm;
+        if (!issuer.equals(claims.path("iss").asText())) {
+            throw new IllegalStateException("ID token issuer " + claims.path("iss").asText() + " is not " + issuer);
+        }
+        JsonNode audience = claims.path("aud");
+        boolean forUs = audience.isArray() ? containsText(audience, clientId) : clientId.equals(audience.asText());
+        if (!forUs) {
+            throw new IllegalStateException("ID token audience " + audience + " does not include " + clientId);
+        }
+        long now = System.currentTimeMillis() / 1000;
+        if (claims.path("exp").asLong() + CLOCK_SKEW_SECONDS < now) {
+            throw new IllegalStateException("ID token expired at " + claims.path("exp").asLong());
+        }
+        if (claims.path("iat").asLong() - CLOCK_SKEW_SECONDS > now) {
+            throw new IllegalStateException("ID token issued in the future: " + claims.path("iat").asLong());
+        }
+        return claims;
+    }
+
+    // ==================== Helpers ====================
+
+    private JsonNode redeem(String realm, String redirectUri, String code) {
+        String form = "grant_type=authorization_code"
+                + "&code=" + encode(code)
+                + "&redirect_uri=" + encode(redirectUri)
+                + "&client_id=" + encode(clientId)
+                + "&client_secret=" + encode(clientSecret);
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(keycloakBaseUrl + "/realms/" + realm + "/protocol/openid-connect/token"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Code exchange failed with " + response.statusCode() + ": " + response.body());
+            }
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Code exchange request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during code exchange", e);
+        }
+    }
+
+    private static boolean containsText(JsonNode array, String value) {
+        for (JsonNode element : array) {
+            if (value.equals(element.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JsonNode decodeJson(String part) {
+        try {
+            return objectMapper.readTree(Base64.getUrlDecoder().decode(part));
+        } catch (IOException e) {
+            throw new UncheckedIOException("ID token part is not JSON", e);
+        }
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            String[] parts = pair.split("=", 2);
+            if (parts[0].equals(name)) {
+                return parts.length == 2 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "";
+            }
+        }
+        return null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+package com.medad.uaepass;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.medad.base.BaseTest;
+import com.medad.browser.StorageStateCache;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.AriaRole;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Post-login behaviour on a shared realm; the UAE Pass login runs once and later tests restore it
+ * from StorageStateCache instead of going through the broker again.
+ */
+@Epic("Medad Identity")
+@Feature("UAE Pass Integration")
+public class AuthenticatedSessionTest extends BaseTest {
+
+    private static final String USERNAME = "LinkedUser";
+
+    @Test
+    @DisplayName("Existing SSO session signs the user in without UAE Pass")
+    @Description("Restores the stored UAE Pass login into a browser without cookies and checks a new authorization request goes straight back to the client.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("Authenticated session reuse")
+    public void testSsoSessionSkipsUaePass() {
+        Allure.step("Step 1: Start logged in as " + USERNAME, this::loginOnce);
+
+        Allure.step("Step 2: Drop the browser's cookies and restore the stored login", () -> {
+            page.context().clearCookies();
+            assertTrue(restoreLogin(USERNAME, UAE_PASS_ALIAS), "The stored login should be restored");
+            System.out.println("✓ " + StorageStateCache.summary());
+        });
+
+        Allure.step("Step 3: Open Medad SSO URL and land on the client callback directly", () -> {
+            page.navigate(createMedadSSO());
+            page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
+        });
+    }
+
+    @Test
+    @DisplayName("Ended Keycloak session is not restored")
+    @Description("Ends the user's Keycloak sessions and checks the stored login is discarded instead of restored.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("Authenticated session reuse")
+    public void testEndedSessionIsNotRestored() {
+        Allure.step("Step 1: Start logged in as " + USERNAME, this::loginOnce);
+
+        Allure.step("Step 2: End the user's sessions and try to restore the login", () -> {
+            assertTrue(getUserManager().logoutUser(testRealmName, USERNAME), "Sessions should be ended");
+            page.context().clearCookies();
+            assertFalse(restoreLogin(USERNAME, UAE_PASS_ALIAS), "An ended session should not be restored");
+            System.out.println("✓ " + StorageStateCache.summary());
+        });
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * Restore the stored UAE Pass login, or log in through the broker and store it
+     */
+    private void loginOnce() {
+        useSharedRealm("medad", realm -> {
+            JsonNode idpNode = getIdentityProviderManager().getIdentityProviderNodeByAlias("idp-configs.json", UAE_PASS_ALIAS);
+            assertTrue(getIdentityProviderManager().createIdentityProviderFromNodeWithUrls(realm, idpNode,
+                    UAE_PASS_HOST_BASE_URL, UAE_PASS_INTERNAL_BASE_URL), "UAE Pass identity provider should be created");
+            JsonNode userNode = getUserManager().getUserNodeByUsername("users.json", USERNAME);
+            assertNotNull(getUserManager().createUserFromNode(realm, userNode), "User should be created");
+        });
+        if (restoreLogin(USERNAME, UAE_PASS_ALIAS)) {
+            System.out.println("✓ Login restored from the cache");
+            return;
+        }
+        page.navigate(createMedadSSO());
+        page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
+        page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+        rememberLogin(USERNAME, UAE_PASS_ALIAS);
+        System.out.println("✓ Logged in through UAE Pass and stored the login");
+    }
+}
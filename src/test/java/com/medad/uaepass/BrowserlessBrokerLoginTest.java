@@ -0,0 +1,135 @@
+package com.medad.uaepass;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.medad.base.BaseTest;
+import com.medad.browser.WithoutBrowser;
+import com.medad.protocol.BrokerLoginDriver;
+import com.medad.protocol.BrokerLoginResult;
+import com.medad.protocol.RelyingPartyClient;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The UAE Pass broker scenarios of LoginViaUaePassTest driven over HTTP with BrokerLoginDriver, without a browser.
+ */
+@Epic("Medad Identity")
+@Feature("UAE Pass Integration")
+@WithoutBrowser
+public class BrowserlessBrokerLoginTest extends BaseTest {
+
+    @Test
+    @DisplayName("Browserless login for existing user with automatic linking")
+    @Description("Follows the broker redirects over HTTP and checks a linked user reaches the client callback with a code.")
+    @Severity(SeverityLevel.CRITICAL)
+    @Story("Browserless broker login")
+    public void testAutomaticLinkingLogin() {
+        Allure.step("Step 1: Create realm, client, UAE Pass identity provider and linked user", () -> {
+            createRealmAndClient("medad");
+            createIdentityProvider("uaepass");
+            JsonNode userNode = getUserManager().getUserNodeByUsername("users.json", "LinkedUser");
+            assertNotNull(getUserManager().createUserFromNode(testRealmName, userNode), "User should be created");
+        });
+
+        Allure.step("Step 2: Log in through UAE Pass over HTTP", () -> {
+            BrokerLoginResult result = new BrokerLoginDriver("uaepass", TEST_CLIENT_OIDC_CALLBACK_URL)
+                    .login(createMedadSSO());
+            attachSteps(result);
+            assertTrue(result.reachedCallback(), "Login should reach the client callback, stopped at " + result.lastPage());
+            assertNotNull(result.code(), "Callback should carry an authorization code");
+            assertEquals(TEST_STATE, result.state());
+            completeLogin(result);
+        });
+    }
+
+    @Test
+    @DisplayName("Browserless login for existing user with manual linking")
+    @Description("Answers the existing-account question and the Keycloak login form from the returned HTML and checks the user gets linked.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("Browserless broker login")
+    public void testManualLinkingLogin() {
+        JsonNode userNode = getUserManager().getUserNodeByUsername("users.json", "ManualUser");
+        String username = getUserManager().getStringProperty(userNode, "username");
+        String password = getUserManager().getStringProperty(userNode, "password");
+
+        Allure.step("Step 1: Create realm, client, manual-path UAE Pass identity provider and unlinked user", () -> {
+            createRealmAndClient("medad");
+            createIdentityProvider("uaepassManualPath");
+            assertNotNull(getUserManager().createUser(testRealmName, username,
+                    getUserManager().getStringProperty(userNode, "email"),
+                    getUserManager().getStringProperty(userNode, "firstName"),
+                    getUserManager().getStringProperty(userNode, "lastName"),
+                    password), "User should be created");
+        });
+
+        Allure.step("Step 2: Log in through UAE Pass and link with the existing account", () -> {
+            BrokerLoginResult result = new BrokerLoginDriver("uaepassManualPath", TEST_CLIENT_OIDC_CALLBACK_URL)
+                    .answerExistingAccount(true)
+                    .withCredentials(username, password)
+                    .login(createMedadSSO());
+            attachSteps(result);
+            assertTrue(result.reachedCallback(), "Login should reach the client callback, stopped at " + result.lastPage());
+            completeLogin(result);
+            assertTrue(getUserManager().hasFederatedIdentity(testRealmName,
+                    getUserManager().getUserId(testRealmName, username), "uaepassManualPath"));
+        });
+    }
+
+    @Test
+    @DisplayName("Browserless registration of a new UAE Pass user")
+    @Description("Submits the first-broker-login registration form with the terms accepted and checks the user is created.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("Browserless broker login")
+    public void testRegistration() {
+        Allure.step("Step 1: Create realm, client and registering UAE Pass identity provider", () -> {
+            createRealmAndClient("medad");
+            createIdentityProvider("uaepassNewUser");
+        });
+
+        Allure.step("Step 2: Register through UAE Pass over HTTP", () -> {
+            BrokerLoginResult result = new BrokerLoginDriver("uaepassNewUser", TEST_CLIENT_OIDC_CALLBACK_URL)
+                    .withFormValue("termsAccepted", "on")
+                    .login(createMedadSSO());
+            attachSteps(result);
+            assertTrue(result.reachedCallback(), "Registration should reach the client callback, stopped at " + result.lastPage());
+            completeLogin(result);
+            assertTrue(getUserManager().userExists(testRealmName, "john_doe@gmail.com"));
+        });
+    }
+
+    // ==================== Helpers ====================
+
+    private void createRealmAndClient(String realmKey) {
+        JsonNode realmNode = getRealmConfigManager().getRealmNodeByName("realm-configs.json", realmKey);
+        testRealmName = realmNode.get("realm").asText();
+        assertTrue(getRealmConfigManager().createRealmFromNode(realmNode), "Realm should be created");
+        assertTrue(getClientManager().createClient(testRealmName, TEST_CLIENT_ID, TEST_CLIENT_NAME,
+                TEST_CLIENT_SECRET, TEST_CLIENT_OIDC_CALLBACK_URL), "Client should be created");
+        System.out.println("✓ Realm and client created: " + testRealmName);
+    }
+
+    private void createIdentityProvider(String alias) {
+        JsonNode idpNode = getIdentityProviderManager().getIdentityProviderNodeByAlias("idp-configs.json", alias);
+        assertTrue(getIdentityProviderManager().createIdentityProviderFromNodeWithUrls(testRealmName, idpNode,
+                UAE_PASS_HOST_BASE_URL, UAE_PASS_INTERNAL_BASE_URL), "UAE Pass identity provider should be created");
+        System.out.println("✓ Identity provider created: " + alias);
+    }
+
+    /**
+     * Exchange the code and validate the ID token; attaches the end-to-end phase timings
+     */
+    private void completeLogin(BrokerLoginResult result) {
+        RelyingPartyClient.Login login = getRelyingPartyClient().complete(testRealmName, TEST_CLIENT_OIDC_CALLBACK_URL, result);
+        Allure.addAttachment("End-to-end login phases", "text/plain", login.describe());
+        System.out.println("✓ End-to-end login in " + login.total().toMillis() + " ms");
+    }
+
+    private static void attachSteps(BrokerLoginResult result) {
+        System.out.println("✓ " + result.requests() + " requests in " + result.elapsed().toMillis() + " ms");
+        Allure.addAttachment("Broker login requests", "text/plain", result.describe());
+    }
+}
@@ -2,6 +2,8 @@ package com.medad.uaepass;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.medad.base.BaseTest;
+import com.medad.base.KeycloakMetricsLock;
+import com.medad.base.UaePassLoginLock;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.AriaRole;
 import io.qameta.allure.*;
@@ -10,12 +12,23 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import java.io.IOException;
 import static com.microsoft.playwright.assertions.PlaywrightAssertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+/**
+ * Login through the UAE Pass identity provider for each account linking scenario.
+ * Every method provisions its own namespaced realm, so the methods run concurrently; with UAEPASS_MOCK_MODE=fixed
+ * the mock serves one login at a time and UaePassLoginLock runs them one after the other. KeycloakMetricsLock does
+ * the same while the per-test Keycloak metrics diff or statement profile is on, so each only holds its own test's work.
+ */
 @Epic("Medad Identity")
 @Feature("UAE Pass Integration")
+@Execution(ExecutionMode.CONCURRENT)
+@ResourceLock(providers = {UaePassLoginLock.class, KeycloakMetricsLock.class})
 public class LoginViaUaePassTest extends BaseTest {
     JsonNode userNode;
 
@@ -82,6 +95,7 @@ public class LoginViaUaePassTest extends BaseTest {
             page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
             captureScreenshot("Success linked user Login ", page);
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
         });
     }
 
@@ -163,6 +177,7 @@ public class LoginViaUaePassTest extends BaseTest {
                     .fill(password);
             page.getByRole(AriaRole.BUTTON, new Page.GetByRoleOptions().setName("Sign In")).click();
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             assertTrue(userManager.hasFederatedIdentity(testRealmName, userID, "uaepassManualPath"));
         });
     }
@@ -227,6 +242,7 @@ public class LoginViaUaePassTest extends BaseTest {
             page.getByRole(AriaRole.CHECKBOX, new Page.GetByRoleOptions().setName("I agreed with all ")).check();
             page.getByRole(AriaRole.BUTTON, new Page.GetByRoleOptions().setName("Sign Up")).click();
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             assertTrue(userManager.userExists(testRealmName, "john_doe@gmail.com"));
         });
     }
@@ -314,6 +330,7 @@ public class LoginViaUaePassTest extends BaseTest {
                     .fill(password);
             page.getByRole(AriaRole.BUTTON, new Page.GetByRoleOptions().setName("Sign In")).click();
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
         });
     }
 
@@ -379,6 +396,7 @@ public class LoginViaUaePassTest extends BaseTest {
             page.getByRole(AriaRole.BUTTON, new Page.GetByRoleOptions().setName("Sign Up")).click();
 
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             //Assert that user created
             assertTrue(userManager.userExists(testRealmName, "john_doe@gmail.com"));
         });
@@ -446,6 +464,7 @@ public class LoginViaUaePassTest extends BaseTest {
             page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
             captureScreenshot("Success user Login ", page);
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             assertTrue(userManager.hasFederatedIdentity(testRealmName, userManager.getUserId(testRealmName,"Emirateuser"), "autoLinkingLevel2"));
         });
     }
@@ -512,6 +531,7 @@ public class LoginViaUaePassTest extends BaseTest {
             page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
             captureScreenshot("Success linked user Login ", page);
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             assertTrue(userManager.hasFederatedIdentity(testRealmName, userManager.getUserId(testRealmName,"level3User"), "autoLinkingLevel3"));
         });
     }
@@ -572,6 +592,7 @@ public class LoginViaUaePassTest extends BaseTest {
             page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
             captureScreenshot("Success linked user Login ", page);
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             assertTrue(userManager.hasFederatedIdentity(testRealmName, userManager.getUserId(testRealmName,"Emirateuser"), "autoLinkingLevel4"));
         });
     }
@@ -819,6 +840,7 @@ public class LoginViaUaePassTest extends BaseTest {
             Assertions.assertEquals("Yes, override link with current account", page.locator("button").textContent().trim());
             page.locator("button").click();
             page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
             Assertions.assertNotEquals(userManager.getStringProperty(userNode,"federatedUserId")
                     , getUserManager().getFederatedUserIdByUsername(testRealmName,"userHasLink","uaepass"));
         });
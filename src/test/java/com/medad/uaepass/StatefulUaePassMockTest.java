@@ -0,0 +1,178 @@
+package com.medad.uaepass;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medad.benchmark.BrokeredLoginBenchmark;
+import com.medad.config.EnvironmentConfig;
+import com.medad.mock.SyntheticIdentity;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.AriaRole;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stateful UAE Pass mock: one code and token per login, each bound to the identity picked with login_hint.
+ *   mvn test -Dtest=StatefulUaePassMockTest -DUAEPASS_MOCK_MODE=stateful
+ *   mvn test -Dtest=StatefulUaePassMockTest -DUAEPASS_MOCK_MODE=in-jvm
+ */
+@Epic("Medad Identity")
+@Feature("UAE Pass Integration")
+public class StatefulUaePassMockTest extends BrokeredLoginBenchmark {
+
+    private static final int CONCURRENT_FLOWS = EnvironmentConfig.getInt("UAEPASS_MOCK_CONCURRENCY", 100);
+    private static final String BROKER_REDIRECT_URI = "http://keycloak:8080/realms/medad/broker/uaepass/endpoint";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @Override
+    protected boolean needsCodePerLogin() {
+        return true;
+    }
+
+    @Test
+    @DisplayName("Concurrent UAE Pass flows get their own single-use codes and identities")
+    @Description("Runs many authorize/token/userinfo flows against the stateful mock at once and checks every flow gets its own identity and that a code cannot be redeemed twice.")
+    @Severity(SeverityLevel.CRITICAL)
+    @Story("Stateful UAE Pass mock")
+    public void testConcurrentFlowsAreIsolated() throws Exception {
+        List<Future<?>> flows = new ArrayList<>();
+        Allure.step("Step 1: Run " + CONCURRENT_FLOWS + " flows concurrently", () -> {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < CONCURRENT_FLOWS; i++) {
+                    SyntheticIdentity identity = SyntheticIdentity.of("concurrent-user-" + i);
+                    flows.add(executor.submit(() -> {
+                        runFlow(identity);
+                        return null;
+                    }));
+                }
+            }
+        });
+        Allure.step("Step 2: Verify every flow succeeded", () -> {
+            for (Future<?> flow : flows) {
+                flow.get();
+            }
+            System.out.println("✓ " + CONCURRENT_FLOWS + " concurrent flows verified");
+        });
+    }
+
+    @Test
+    @DisplayName("Brokered login picks the UAE Pass identity from login_hint")
+    @Description("Logs in through Keycloak with a login_hint and checks the user linked to the matching synthetic UAE Pass identity is signed in.")
+    @Severity(SeverityLevel.NORMAL)
+    @Story("Stateful UAE Pass mock")
+    public void testBrokeredLoginUsesLoginHintIdentity() {
+        SyntheticIdentity identity = SyntheticIdentity.of("hinted-user");
+
+        Allure.step("Step 1: Create realm, client and UAE Pass identity provider forwarding login_hint", () -> {
+            provisionBrokerRealm(UAE_PASS_ALIAS);
+        });
+
+        Allure.step("Step 2: Create a user linked to identity " + identity.loginHint(), () -> {
+            String userId = getUserManager().createUser(testRealmName, identity.loginHint(), identity.email(),
+                    identity.firstName(), identity.lastName(), "Password123!");
+            assertNotNull(userId, "User should be created");
+            assertTrue(getUserManager().createFederatedIdentity(testRealmName, userId, UAE_PASS_ALIAS,
+                    identity.uuid(), identity.email()), "User should be linked to UAE Pass");
+        });
+
+        Allure.step("Step 3: Log in with login_hint=" + identity.loginHint(), () -> {
+            page.navigate(createMedadSSO(identity.loginHint()));
+            page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName(UAE_PASS_DISPLAY_NAME).setExact(true)).click();
+            page.waitForURL(TEST_CLIENT_OIDC_CALLBACK_URL + "**");
+            completeRelyingPartyLogin();
+            captureScreenshot("Login with login_hint", page);
+            assertEquals(identity.uuid(),
+                    getUserManager().getFederatedUserIdByUsername(testRealmName, identity.loginHint(), UAE_PASS_ALIAS),
+                    "The hinted identity should be the one logged in");
+        });
+    }
+
+    // ==================== Helpers ====================
+
+    private void runFlow(SyntheticIdentity identity) throws Exception {
+        String state = "state-" + identity.loginHint();
+        HttpResponse<String> authorize = httpClient.send(HttpRequest.newBuilder(URI.create(UAE_PASS_HOST_BASE_URL
+                        + "/authorize?" + String.join("&",
+                        "response_type=code",
+                        "client_id=" + TEST_UAEPASS_CLIENT_ID,
+                        "state=" + state,
+                        "redirect_uri=" + encode(BROKER_REDIRECT_URI),
+                        "acr_values=" + encode("urn:safelayer:tws:policies:authentication:level:low"),
+                        "login_hint=" + identity.loginHint()))).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(302, authorize.statusCode(), "Authorize should redirect");
+        String location = authorize.headers().firstValue("Location").orElseThrow();
+        String code = queryParameter(location, "code");
+        assertEquals(state, queryParameter(location, "state"), "State should be echoed");
+
+        HttpResponse<String> token = redeem(code);
+        assertEquals(200, token.statusCode(), "Code should be redeemable once: " + token.body());
+        String accessToken = objectMapper.readTree(token.body()).get("access_token").asText();
+
+        HttpResponse<String> replay = redeem(code);
+        assertEquals(400, replay.statusCode(), "Code should not be redeemable twice");
+        assertEquals("invalid_grant", objectMapper.readTree(replay.body()).get("error").asText());
+
+        HttpResponse<String> userinfo = httpClient.send(HttpRequest.newBuilder(URI.create(UAE_PASS_HOST_BASE_URL + "/userinfo"))
+                .header("Authorization", "Bearer " + accessToken).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, userinfo.statusCode(), "Userinfo should accept the issued token");
+        JsonNode profile = objectMapper.readTree(userinfo.body());
+        assertEquals(identity.uuid(), profile.get("uuid").asText());
+        assertEquals(identity.email(), profile.get("email").asText());
+        assertEquals(identity.idn(), profile.get("idn").asText(), "idn should be derived from the login_hint");
+        assertEquals(identity.mobile(), profile.get("mobile").asText(), "mobile should be derived from the login_hint");
+
+        HttpResponse<String> userinfoReplay = httpClient.send(HttpRequest.newBuilder(URI.create(UAE_PASS_HOST_BASE_URL + "/userinfo"))
+                .header("Authorization", "Bearer " + accessToken).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(401, userinfoReplay.statusCode(), "The token should be dropped once userinfo has been served");
+    }
+
+    private HttpResponse<String> redeem(String code) throws Exception {
+        String form = String.join("&",
+                "grant_type=authorization_code",
+                "code=" + encode(code),
+                "redirect_uri=" + encode(BROKER_REDIRECT_URI),
+                "client_id=" + TEST_UAEPASS_CLIENT_ID,
+                "client_secret=" + TEST_UAEPASS_CLIENT_SECRET);
+        return httpClient.send(HttpRequest.newBuilder(URI.create(UAE_PASS_HOST_BASE_URL + "/token"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String queryParameter(String url, String name) {
+        for (String pair : URI.create(url).getRawQuery().split("&")) {
+            String[] parts = pair.split("=", 2);
+            if (parts[0].equals(name) && parts.length == 2) {
+                return URLDecoder.decode(parts[1], StandardCharsets.UTF_8);
+            }
+        }
+        throw new AssertionError("Missing '" + name + "' in " + url);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
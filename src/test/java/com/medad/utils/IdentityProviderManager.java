@@ -2,6 +2,7 @@ package com.medad.utils;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.ws.rs.core.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -200,6 +201,37 @@ public class IdentityProviderManager {
         return createIdentityProviderFromNodeAfterUAEPassStart(realmName, updatedIdpNode);
     }
 
+    /**
+     * Create identity provider with dynamic URL replacement, then override individual config entries
+     * (e.g., send "tokenUrl" and "userInfoUrl" through a fault-injection proxy)
+     *
+     * @param realmName Realm name
+     * @param idpNode JsonNode with placeholders
+     * @param uaePassBaseUrl UAE Pass external URL (from container)
+     * @param uaePassInternalUrl UAE Pass internal URL (for network communication)
+     * @param configOverrides Config key -> value, applied after placeholder replacement
+     * @return true if created successfully
+     */
+    public boolean createIdentityProviderFromNodeWithUrls(String realmName,
+                                                          JsonNode idpNode,
+                                                          String uaePassBaseUrl,
+                                                          String uaePassInternalUrl,
+                                                          Map<String, String> configOverrides) {
+        Map<String, String> replacements = new HashMap<>();
+        replacements.put("uaepass.base.url", uaePassBaseUrl);
+        replacements.put("uaepass.internal.url", uaePassInternalUrl);
+        replacements.put("realm.name", realmName);
+
+        JsonNode updatedIdpNode = replacePlaceholders(idpNode, replacements);
+        ObjectNode configNode = (ObjectNode) updatedIdpNode.get("config");
+        for (Map.Entry<String, String> override : configOverrides.entrySet()) {
+            configNode.put(override.getKey(), override.getValue());
+            logger.info("Overriding identity provider config '{}' -> {}", override.getKey(), override.getValue());
+        }
+
+        return createIdentityProviderFromNodeAfterUAEPassStart(realmName, updatedIdpNode);
+    }
+
     // ==================== Create Identity Provider from JsonNode ====================
 
     /**
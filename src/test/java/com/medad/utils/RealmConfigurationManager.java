@@ -5,9 +5,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.medad.base.BaseTest;
+import com.medad.base.FixtureNamespace;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.RealmsResource;
+import org.keycloak.representations.idm.RealmEventsConfigRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.keycloak.representations.userprofile.config.UPConfig;
 import org.slf4j.Logger;
@@ -257,7 +259,7 @@ public class RealmConfigurationManager extends BaseTest {
                 if (profilesArray.isArray()) {
                     for (JsonNode profileNode : profilesArray) {
                         if (profileNode.has("realmName") &&
-                                profileNode.get("realmName").asText().equals(realmName)) {
+                                profileNode.get("realmName").asText().equals(FixtureNamespace.fixtureName(realmName))) {
 
                             if (profileNode.has("userProfile")) {
                                 logger.info("✓ Found user profile config for realm: {}", realmName);
@@ -337,60 +339,14 @@ public class RealmConfigurationManager extends BaseTest {
             throw new RuntimeException("Failed to get user profile: " + getResponse.statusCode() + " - " + getResponse.body());
         }
 
-        // 3. Parse existing configuration
-        JsonNode existingConfig = objectMapper.readTree(getResponse.body());
-        ArrayNode existingAttributes = (ArrayNode) existingConfig.get("attributes");
-        if (existingAttributes == null) {
-            existingAttributes = objectMapper.createArrayNode();
-        }
-
-        // 4. Extract attributes from config node
-        ArrayNode newAttributes = objectMapper.createArrayNode();
-
-        if (configNode.has("attributes")) {
-            JsonNode attributesNode = configNode.get("attributes");
-            if (attributesNode != null && attributesNode.isArray()) {
-                newAttributes = (ArrayNode) attributesNode;
-            }
-        } else if (configNode.has("name")) {
-            // Single attribute
-            newAttributes.add(configNode);
-        } else {
-            throw new IllegalArgumentException("Invalid config format. Must contain 'attributes' array or be a single attribute");
-        }
+        // 3. Merge the new attributes into the existing configuration (same-named attributes are replaced)
+        ObjectNode updatedConfig = UserProfileAttributes.merge(objectMapper.readTree(getResponse.body()), configNode);
+        System.out.println("Added/Updated attributes; profile now has " + updatedConfig.get("attributes").size());
 
-        // 5. Create updated attributes array starting with existing
-        ArrayNode updatedAttributes = objectMapper.createArrayNode();
-        for (JsonNode attr : existingAttributes) {
-            updatedAttributes.add(attr);
-        }
-
-        // 6. Add/update each new attribute (remove duplicates by name)
-        for (JsonNode newAttribute : newAttributes) {
-            String newAttrName = newAttribute.get("name").asText();
-
-            // Remove existing attribute with same name
-            ArrayNode temp = objectMapper.createArrayNode();
-            for (JsonNode attr : updatedAttributes) {
-                if (!attr.get("name").asText().equals(newAttrName)) {
-                    temp.add(attr);
-                }
-            }
-            updatedAttributes = temp;
-
-            // Add new attribute
-            updatedAttributes.add(newAttribute);
-            System.out.println("Added/Updated attribute: " + newAttrName);
-        }
-
-        // 7. Update the config
-        ObjectNode updatedConfig = (ObjectNode) existingConfig;
-        updatedConfig.set("attributes", updatedAttributes);
-
-        // 8. Convert to JSON string
+        // 4. Convert to JSON string
         String updatedConfigJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(updatedConfig);
 
-        // 9. Send PUT request
+        // 5. Send PUT request
         HttpRequest putRequest = HttpRequest.newBuilder()
                 .uri(URI.create(serverUrl + "/admin/realms/" + realmName + "/users/profile"))
                 .header("Authorization", "Bearer " + accessToken)
@@ -632,6 +588,35 @@ public class RealmConfigurationManager extends BaseTest {
         }
     }
 
+    /**
+     * Replace the realm's event listeners and admin event settings; stored user events stay as they are
+     */
+    public void updateEventsConfig(String realmName, List<String> eventsListeners,
+                                   boolean adminEventsEnabled, boolean adminEventsDetailsEnabled) {
+        try {
+            RealmResource realmResource = keycloak.realm(realmName);
+            RealmEventsConfigRepresentation config = realmResource.getRealmEventsConfig();
+            config.setEventsListeners(eventsListeners);
+            config.setAdminEventsEnabled(adminEventsEnabled);
+            config.setAdminEventsDetailsEnabled(adminEventsDetailsEnabled);
+            realmResource.updateRealmEventsConfig(config);
+            logger.info("✓ Realm '{}' events: listeners {}, admin events {}, admin event details {}",
+                    realmName, eventsListeners, adminEventsEnabled, adminEventsDetailsEnabled);
+        } catch (Exception e) {
+            logger.error("✗ Error updating events config of realm '{}'", realmName, e);
+            throw new RuntimeException("Failed to update events config of realm: " + realmName, e);
+        }
+    }
+
+    /**
+     * Active user sessions in the realm, summed over its clients (admin API client-session-stats)
+     */
+    public long countActiveSessions(String realmName) {
+        return keycloak.realm(realmName).getClientSessionStats().stream()
+                .mapToLong(stats -> Long.parseLong(stats.getOrDefault("active", "0")))
+                .sum();
+    }
+
     /**
      * Check if realm exists
      */
@@ -646,6 +631,7 @@ public class RealmConfigurationManager extends BaseTest {
 
     /**
      * Get realm node by name from JSON
+     * The returned copy carries the running test's namespaced realm name (see FixtureNamespace)
      */
 
     public JsonNode getRealmNodeByName(String jsonFilePath, String realmKey) {
@@ -654,8 +640,10 @@ public class RealmConfigurationManager extends BaseTest {
 
             for (JsonNode node : nodes) {
                 if (node.has("realm") && node.get("realm").asText().equals(realmKey)) {
-                    logger.info("✓ Found realm: {}", realmKey);
-                    return node;
+                    ObjectNode realmNode = (ObjectNode) node.deepCopy();
+                    realmNode.put("realm", FixtureNamespace.realm(realmKey));
+                    logger.info("✓ Found realm: {} (as '{}')", realmKey, realmNode.get("realm").asText());
+                    return realmNode;
                 }
             }
 
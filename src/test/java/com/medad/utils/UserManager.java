@@ -8,8 +8,11 @@ import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
+import org.keycloak.representations.idm.PartialImportResults;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
+import org.keycloak.representations.idm.UserSessionRepresentation;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -156,38 +159,11 @@ public class UserManager {
             RealmResource realmResource = keycloak.realm(realmName);
             UsersResource usersResource = realmResource.users();
 
-            // Build UserRepresentation from JsonNode
-            UserRepresentation user = new UserRepresentation();
-
-            user.setUsername(userNode.get("username").asText());
-            user.setEmail(userNode.get("email").asText());
-            user.setFirstName(userNode.get("firstName").asText());
-            user.setLastName(userNode.get("lastName").asText());
-            user.setEnabled(userNode.get("enabled").asBoolean());
-            user.setEmailVerified(userNode.get("emailVerified").asBoolean());
-//            if (userNode.has("attributes")) {
-//                user.setAttributes(parseAttributes(userNode.get("attributes")));
-//                System.out.println("=========================="+user.toString());
-//            }
-
-            // ⭐ CUSTOM ATTRIBUTES WITH DETAILED LOGGING
-            if (userNode.has("attributes")) {
+            UserRepresentation user = toUserRepresentation(userNode);
+            if (user.getAttributes() != null) {
                 logger.info("  📋 CUSTOM ATTRIBUTES FROM JSON:");
-
-                JsonNode attrsNode = userNode.get("attributes");
-                Map<String, List<String>> attributes = new HashMap<>();
-
-                attrsNode.fields().forEachRemaining(entry -> {
-                    String key = entry.getKey();
-                    String value = entry.getValue().asText();
-                    attributes.put(key, Arrays.asList(value));
-
-                    // ⭐ LOG EACH ATTRIBUTE
-                    logger.info("    - {}: {}", key, value);
-                });
-
-                user.setAttributes(attributes);
-                logger.info("  ✓ Total custom attributes: {}", attributes.size());
+                user.getAttributes().forEach((key, values) -> logger.info("    - {}: {}", key, values.getFirst()));
+                logger.info("  ✓ Total custom attributes: {}", user.getAttributes().size());
             } else {
                 logger.info("  ⚠️  No custom attributes in JSON");
             }
@@ -233,6 +209,28 @@ public class UserManager {
         }
     }
 
+    /**
+     * Build the representation createUserFromNode sends, without calling Keycloak
+     * Each "attributes" entry becomes a single-valued attribute.
+     * @param userNode JsonNode containing user configuration
+     */
+    public static UserRepresentation toUserRepresentation(JsonNode userNode) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(userNode.get("username").asText());
+        user.setEmail(userNode.get("email").asText());
+        user.setFirstName(userNode.get("firstName").asText());
+        user.setLastName(userNode.get("lastName").asText());
+        user.setEnabled(userNode.get("enabled").asBoolean());
+        user.setEmailVerified(userNode.get("emailVerified").asBoolean());
+        if (userNode.has("attributes")) {
+            Map<String, List<String>> attributes = new HashMap<>();
+            userNode.get("attributes").fields().forEachRemaining(entry ->
+                    attributes.put(entry.getKey(), Arrays.asList(entry.getValue().asText())));
+            user.setAttributes(attributes);
+        }
+        return user;
+    }
+
     /**
      * Create user from JsonNode
      * @param realmName Realm name where user will be created
@@ -579,6 +577,31 @@ public class UserManager {
     }
 
 
+    // ==================== Bulk Import ====================
+
+    /**
+     * Import users with one partial import request; usernames that already exist are skipped
+     * Far faster than one create call per user, e.g. for seeding realms with many users
+     * @param users Users with attributes (and credentials if needed)
+     * @return Number of users added
+     */
+    public int importUsers(String realmName, List<UserRepresentation> users) {
+        PartialImportRepresentation partialImport = new PartialImportRepresentation();
+        partialImport.setIfResourceExists(PartialImportRepresentation.Policy.SKIP.name());
+        partialImport.setUsers(users);
+        try (var response = keycloak.realm(realmName).partialImport(partialImport)) {
+            if (response.getStatus() != 200) {
+                logger.error("✗ Partial import of {} users into realm '{}' failed. Status: {}",
+                        users.size(), realmName, response.getStatus());
+                throw new RuntimeException("Failed to import users. Status: " + response.getStatus());
+            }
+            PartialImportResults results = response.readEntity(PartialImportResults.class);
+            logger.info("✓ Imported {} users into realm '{}' ({} skipped)",
+                    results.getAdded(), realmName, results.getSkipped());
+            return results.getAdded();
+        }
+    }
+
     // ==================== Delete User ====================
 
     /**
@@ -620,6 +643,24 @@ public class UserManager {
 
     // ==================== User Existence & Info ====================
 
+    /**
+     * Number of users in the realm
+     */
+    public int countUsers(String realmName) {
+        return keycloak.realm(realmName).users().count();
+    }
+
+    /**
+     * IDs of all users with exactly this email; more than one means a duplicate account
+     */
+    public List<String> getUserIdsByEmail(String realmName, String email) {
+        List<String> userIds = new ArrayList<>();
+        for (UserRepresentation user : keycloak.realm(realmName).users().searchByEmail(email, true)) {
+            userIds.add(user.getId());
+        }
+        return userIds;
+    }
+
     /**
      * Check if user exists
      */
@@ -661,6 +702,45 @@ public class UserManager {
             return null;
         }
     }
+
+    /**
+     * Ids of the user's active Keycloak sessions; empty if the user or realm no longer exists
+     */
+    public Set<String> getUserSessionIds(String realmName, String username) {
+        try {
+            String userId = getUserId(realmName, username);
+            if (userId == null) {
+                return Set.of();
+            }
+            Set<String> sessionIds = new HashSet<>();
+            for (UserSessionRepresentation session : keycloak.realm(realmName).users().get(userId).getUserSessions()) {
+                sessionIds.add(session.getId());
+            }
+            return sessionIds;
+
+        } catch (Exception e) {
+            logger.error("Error getting sessions of user: {}", username, e);
+            return Set.of();
+        }
+    }
+    /**
+     * End all Keycloak sessions of the user
+     */
+    public boolean logoutUser(String realmName, String username) {
+        try {
+            String userId = getUserId(realmName, username);
+            if (userId == null) {
+                return false;
+            }
+            keycloak.realm(realmName).users().get(userId).logout();
+            logger.info("✓ Sessions of user '{}' ended", username);
+            return true;
+
+        } catch (Exception e) {
+            logger.error("✗ Error logging out user '{}'", username, e);
+            return false;
+        }
+    }
     /**
      * Get user email by username
      */
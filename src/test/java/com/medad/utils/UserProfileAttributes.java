@@ -0,0 +1,61 @@
+package com.medad.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * User profile attribute merging, without a Keycloak connection
+ * Responsibility: apply the attributes of a user-profile config file to a realm's user profile configuration
+ */
+public final class UserProfileAttributes {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserProfileAttributes() {}
+
+    /**
+     * Add or replace attributes by name; replaced attributes move to the end, in the order of configNode
+     * @param existingConfig User profile configuration from GET /admin/realms/{realm}/users/profile; updated in place
+     * @param configNode Either {"attributes": [...]} or a single attribute with a "name"
+     * @return existingConfig with the merged "attributes" array
+     */
+    public static ObjectNode merge(JsonNode existingConfig, JsonNode configNode) {
+        ArrayNode existingAttributes = (ArrayNode) existingConfig.get("attributes");
+        if (existingAttributes == null) {
+            existingAttributes = objectMapper.createArrayNode();
+        }
+
+        ArrayNode newAttributes = objectMapper.createArrayNode();
+        if (configNode.has("attributes")) {
+            JsonNode attributesNode = configNode.get("attributes");
+            if (attributesNode != null && attributesNode.isArray()) {
+                newAttributes = (ArrayNode) attributesNode;
+            }
+        } else if (configNode.has("name")) {
+            // Single attribute
+            newAttributes.add(configNode);
+        } else {
+            throw new IllegalArgumentException("Invalid config format. Must contain 'attributes' array or be a single attribute");
+        }
+
+        ArrayNode updatedAttributes = objectMapper.createArrayNode();
+        updatedAttributes.addAll(existingAttributes);
+
+        // Remove an existing attribute with the same name, then add the new one
+        for (JsonNode newAttribute : newAttributes) {
+            String newAttrName = newAttribute.get("name").asText();
+            for (int i = updatedAttributes.size() - 1; i >= 0; i--) {
+                if (updatedAttributes.get(i).get("name").asText().equals(newAttrName)) {
+                    updatedAttributes.remove(i);
+                }
+            }
+            updatedAttributes.add(newAttribute);
+        }
+
+        ObjectNode updatedConfig = (ObjectNode) existingConfig;
+        updatedConfig.set("attributes", updatedAttributes);
+        return updatedConfig;
+    }
+}
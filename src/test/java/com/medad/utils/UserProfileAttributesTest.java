@@ -0,0 +1,60 @@
+package com.medad.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * UserProfileAttributes on user profile configurations shaped like Keycloak's (no containers).
+ */
+@Epic("Medad Identity")
+@Feature("User Profile")
+public class UserProfileAttributesTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Merging adds new attributes and replaces same-named ones")
+    @Severity(SeverityLevel.MINOR)
+    @Story("User profile attributes")
+    public void testMergeReplacesByName() throws Exception {
+        JsonNode existing = objectMapper.readTree("""
+                {"attributes": [{"name": "username"}, {"name": "mobile", "displayName": "Old"}, {"name": "email"}]}
+                """);
+        JsonNode config = objectMapper.readTree("""
+                {"attributes": [{"name": "mobile", "displayName": "Mobile"}, {"name": "idn"}]}
+                """);
+
+        JsonNode merged = UserProfileAttributes.merge(existing, config);
+
+        assertEquals(List.of("username", "email", "mobile", "idn"), names(merged));
+        assertEquals("Mobile", merged.get("attributes").get(2).get("displayName").asText());
+    }
+
+    @Test
+    @DisplayName("Merging accepts a single attribute and rejects other shapes")
+    @Severity(SeverityLevel.MINOR)
+    @Story("User profile attributes")
+    public void testMergeSingleAttribute() throws Exception {
+        JsonNode merged = UserProfileAttributes.merge(objectMapper.readTree("{}"),
+                objectMapper.readTree("{\"name\": \"mobile\"}"));
+
+        assertEquals(List.of("mobile"), names(merged));
+        assertThrows(IllegalArgumentException.class, () -> UserProfileAttributes.merge(
+                objectMapper.readTree("{}"), objectMapper.readTree("{\"displayName\": \"Mobile\"}")));
+    }
+
+    private static List<String> names(JsonNode config) {
+        List<String> names = new ArrayList<>();
+        config.get("attributes").forEach(attribute -> names.add(attribute.get("name").asText()));
+        return names;
+    }
+}
@@ -5,6 +5,7 @@
 	<#if section = "header">
 		${kcSanitize(msg("errorTitle"))?no_esc}
 	<#elseif section = "form">
+		<!-- template: uaepass-error.ftl -->
 		<div id="kc-error-message">
 			<p class="instruction">${kcSanitize(message.summary)?no_esc}</p>
 